@@ -33,19 +33,24 @@ android {
 
     buildFeatures {
         viewBinding = true
+        // BuildConfig.DEBUG gates the debug-only test data tools
+        buildConfig = true
     }
 }
 
 dependencies {
 
+    implementation(project(":core"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.constraintlayout)
     implementation(libs.navigation.fragment)
     implementation(libs.navigation.ui)
+    implementation(libs.lifecycle.livedata)
 
 
     implementation("com.github.bumptech.glide:glide:4.16.0")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0")
     implementation(libs.play.services.analytics.impl)
     annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
 
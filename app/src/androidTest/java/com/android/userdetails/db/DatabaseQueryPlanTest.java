@@ -0,0 +1,181 @@
+package com.android.userdetails.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs every public query method of DatabaseHelper, captures the SQL it
+ * sends, and fails if EXPLAIN QUERY PLAN shows a full table scan.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseQueryPlanTest {
+
+    private static final String TEST_DB = "query-plan-test.db";
+
+    // Methods whose job is to list or total a whole table; a scan is expected there
+    private static final Set<String> FULL_LISTINGS = new HashSet<>(Arrays.asList(
+            "getAllProducts",
+            "getProductsPage(first)",
+            "getAllOrders",
+            "getCartItems",
+            "getReferencedImagePaths",
+            "getProductSales"
+    ));
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+    private final List<String> capturedSql = new ArrayList<>();
+    private boolean capturing = false;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+
+        SQLiteDatabase.CursorFactory recordingFactory = (db, driver, editTable, query) -> {
+            if (capturing) {
+                capturedSql.add(sqlOf(query));
+            }
+            return new SQLiteCursor(driver, editTable, query);
+        };
+        databaseHelper = new DatabaseHelper(context, TEST_DB, recordingFactory);
+        databaseHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    private Map<String, Runnable> queryMethods() {
+        Map<String, Runnable> methods = new LinkedHashMap<>();
+        methods.put("checkEmail", () -> databaseHelper.checkEmail("a@b.com"));
+        methods.put("checkUser", () -> databaseHelper.checkUser("a@b.com", "secret"));
+        methods.put("getUserByEmail", () -> databaseHelper.getUserByEmail("a@b.com"));
+        methods.put("getAllProducts", () -> databaseHelper.getAllProducts());
+        methods.put("getProductsPage(first)", () -> databaseHelper.getProductsPage(0, 30));
+        methods.put("getProductsPage", () -> databaseHelper.getProductsPage(100, 30));
+        methods.put("getProductCount", () -> databaseHelper.getProductCount());
+        methods.put("getCatalogCache", () -> databaseHelper.getCatalogCache());
+        methods.put("getProductLookupCache", () -> databaseHelper.getProductLookupCache());
+        methods.put("getUserLookupCache", () -> databaseHelper.getUserLookupCache());
+        methods.put("getInvalidationTracker", () -> databaseHelper.getInvalidationTracker());
+        methods.put("getProductById", () -> databaseHelper.getProductById(1));
+        methods.put("searchProducts", () -> databaseHelper.searchProducts("shirt"));
+        methods.put("getAllOrders", () -> databaseHelper.getAllOrders());
+        methods.put("getOrdersByPhone", () -> databaseHelper.getOrdersByPhone("01700000000"));
+        methods.put("getOrdersBetween", () -> databaseHelper.getOrdersBetween(0, System.currentTimeMillis(), 50));
+        methods.put("getOrdersByStatus", () -> databaseHelper.getOrdersByStatus("Pending"));
+        methods.put("getOrderItems", () -> databaseHelper.getOrderItems(1));
+        methods.put("getProductSales", () -> databaseHelper.getProductSales(10));
+        methods.put("getDailySales", () -> databaseHelper.getDailySales(0, System.currentTimeMillis()));
+        methods.put("getTopProducts", () -> databaseHelper.getTopProducts(0, System.currentTimeMillis(), 10));
+        methods.put("getCartItems", () -> databaseHelper.getCartItems());
+        methods.put("getReferencedImagePaths", () -> databaseHelper.getReferencedImagePaths());
+        methods.put("getOrderCount", () -> databaseHelper.getOrderCount());
+        methods.put("getPendingOrdersCount", () -> databaseHelper.getPendingOrdersCount());
+        methods.put("getOrderCountByStatus", () -> databaseHelper.getOrderCountByStatus("Delivered"));
+        methods.put("getTotalRevenue", () -> databaseHelper.getTotalRevenue());
+        return methods;
+    }
+
+    @Test
+    public void everyQueryMethodIsCovered() {
+        Set<String> covered = new HashSet<>();
+        for (String name : queryMethods().keySet()) {
+            covered.add(name.replace("(first)", ""));
+        }
+        for (Method method : DatabaseHelper.class.getDeclaredMethods()) {
+            String name = method.getName();
+            boolean isQuery = name.startsWith("get") || name.startsWith("check") || name.startsWith("search");
+            int modifiers = method.getModifiers();
+            if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && isQuery) {
+                assertTrue("Add " + name + " to DatabaseQueryPlanTest", covered.contains(name));
+            }
+        }
+    }
+
+    @Test
+    public void queriesUseIndexes() {
+        List<String> failures = new ArrayList<>();
+
+        for (Map.Entry<String, Runnable> entry : queryMethods().entrySet()) {
+            capturedSql.clear();
+            // Cache hits send no SQL; make every method reach the database
+            databaseHelper.getCatalogCache().invalidate();
+            databaseHelper.getProductLookupCache().invalidateAll();
+            databaseHelper.getUserLookupCache().invalidateAll();
+            capturing = true;
+            entry.getValue().run();
+            capturing = false;
+
+            for (String sql : new ArrayList<>(capturedSql)) {
+                for (String detail : explain(sql)) {
+                    if (isFullScan(detail) && !FULL_LISTINGS.contains(entry.getKey())) {
+                        failures.add(entry.getKey() + ": " + detail + "\n    " + sql);
+                    }
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            fail("Full table scans:\n" + String.join("\n", failures));
+        }
+    }
+
+    private List<String> explain(String sql) {
+        List<String> details = new ArrayList<>();
+        SQLiteDatabase db = databaseHelper.getReadableDatabase();
+        // Unbound parameters are NULL, which does not change the chosen plan
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        try {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        } finally {
+            cursor.close();
+        }
+        return details;
+    }
+
+    // "SCAN TABLE orders" (older SQLite) or "SCAN orders" with no index
+    private static boolean isFullScan(String detail) {
+        return detail.startsWith("SCAN")
+                && !detail.contains("USING")
+                && !detail.contains("VIRTUAL TABLE")
+                && !detail.contains("CONSTANT ROW");
+    }
+
+    // SQLiteQuery.toString() is "SQLiteQuery: <sql>"
+    private static String sqlOf(SQLiteQuery query) {
+        String text = query.toString();
+        int start = text.indexOf(':');
+        return start >= 0 ? text.substring(start + 1).trim() : text;
+    }
+}
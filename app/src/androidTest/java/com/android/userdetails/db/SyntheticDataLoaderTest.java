@@ -0,0 +1,99 @@
+package com.android.userdetails.db;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.userdetails.data.DatasetSpec;
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.model.DailySales;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads a small generated dataset into a scratch database and checks that
+ * the counters and rollups the screens read agree with what was generated.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SyntheticDataLoaderTest {
+
+    private static final String DB_NAME = "synthetic-test.db";
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        databaseHelper = new DatabaseHelper(context, DB_NAME, null, DatabaseConfig.writeAheadLog());
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void loadedDataMatchesTheDataset() {
+        DatasetSpec spec = DatasetSpec.small(7, System.currentTimeMillis());
+        SyntheticDataset dataset = new SyntheticDataset(spec);
+
+        SyntheticDataLoader.Result result = new SyntheticDataLoader(databaseHelper, 500, null)
+                .load(dataset, Collections.emptyList());
+
+        assertEquals(spec.getUserCount(), result.users);
+        assertEquals(spec.getProductCount(), result.products);
+        assertEquals(spec.getOrderCount(), result.orders);
+        assertEquals(spec.getProductCount(), databaseHelper.getProductCount());
+        assertEquals(spec.getOrderCount(), databaseHelper.getOrderCount());
+
+        // Generated users can sign in
+        User user = dataset.userAt(0);
+        assertTrue(databaseHelper.checkUser(user.getEmail(), SyntheticDataset.USER_PASSWORD));
+
+        double revenue = 0;
+        double sales = 0;
+        Iterator<SyntheticDataset.OrderRecord> orders = dataset.orders(1);
+        while (orders.hasNext()) {
+            SyntheticDataset.OrderRecord record = orders.next();
+            revenue += record.order.getTotalPrice();
+            if (!"Cancelled".equals(record.order.getStatus())) {
+                sales += record.order.getTotalPrice();
+            }
+        }
+        assertEquals(revenue, databaseHelper.getTotalRevenue(), 0.01);
+
+        // The rollups were rebuilt over the whole history
+        double rolledUp = 0;
+        List<DailySales> days = databaseHelper.getDailySales(spec.getStartMillis(), spec.getEndMillis() + 1);
+        for (DailySales day : days) {
+            rolledUp += day.getRevenue();
+        }
+        assertEquals(sales, rolledUp, 0.01);
+        assertFalse(databaseHelper.rebuildOrderStats());
+
+        // Order lines point at the products they were generated from
+        List<OrderItem> items = databaseHelper.getOrderItems(1);
+        assertFalse(items.isEmpty());
+        assertNotNull(databaseHelper.getProductById(items.get(0).getProductId()));
+        assertEquals(databaseHelper.getProductById(items.get(0).getProductId()).getName(),
+                items.get(0).getName());
+    }
+}
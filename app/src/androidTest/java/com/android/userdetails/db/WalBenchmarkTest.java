@@ -0,0 +1,88 @@
+package com.android.userdetails.db;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.userdetails.model.OrderItem;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures read latency while a writer keeps placing orders, once with the
+ * rollback journal and once with WAL. Results go to logcat under the
+ * WalBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WalBenchmarkTest {
+
+    private static final String TAG = "WalBenchmark";
+    private static final int SEED_ORDERS = 2000;
+    private static final int READS = 200;
+
+    @Test
+    public void readLatencyUnderConcurrentWrites() throws Exception {
+        long[] journal = run("bench-journal.db", DatabaseConfig.rollbackJournal());
+        long[] wal = run("bench-wal.db", DatabaseConfig.writeAheadLog());
+
+        Log.i(TAG, String.format("journal p50=%.2fms p95=%.2fms max=%.2fms",
+                journal[0] / 1e6, journal[1] / 1e6, journal[2] / 1e6));
+        Log.i(TAG, String.format("wal     p50=%.2fms p95=%.2fms max=%.2fms",
+                wal[0] / 1e6, wal[1] / 1e6, wal[2] / 1e6));
+
+        assertTrue(journal[0] > 0 && wal[0] > 0);
+    }
+
+    // Returns {p50, p95, max} read latency in nanoseconds
+    private long[] run(String name, DatabaseConfig config) throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(name);
+        DatabaseHelper databaseHelper = new DatabaseHelper(context, name, null, config);
+
+        List<OrderItem> items = new ArrayList<>();
+        items.add(new OrderItem(1, "Benchmark Item", 100, 2));
+        for (int i = 0; i < SEED_ORDERS; i++) {
+            databaseHelper.addOrder("0170000" + (i % 1000), "Dhaka", items, 200);
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            while (writing.get()) {
+                databaseHelper.addOrder("01800000000", "Chattogram", items, 200);
+            }
+        });
+        writer.start();
+
+        List<Long> latencies = new ArrayList<>(READS);
+        try {
+            for (int i = 0; i < READS; i++) {
+                long start = SystemClock.elapsedRealtimeNanos();
+                databaseHelper.getOrdersByStatus("Pending");
+                latencies.add(SystemClock.elapsedRealtimeNanos() - start);
+            }
+        } finally {
+            writing.set(false);
+            writer.join();
+            databaseHelper.close();
+            context.deleteDatabase(name);
+        }
+
+        Collections.sort(latencies);
+        return new long[]{
+                latencies.get(READS / 2),
+                latencies.get(READS * 95 / 100),
+                latencies.get(READS - 1)
+        };
+    }
+}
@@ -15,23 +15,27 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
+import com.android.userdetails.image.ImageIngester;
 import com.bumptech.glide.Glide;
 import com.android.userdetails.model.Product;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
 
 public class AddProductActivity extends AppCompatActivity {
 
     private EditText etProductName, etProductDescription, etProductPrice;
     private ImageView ivProductImage;
-    private Button btnSelectImage, btnAddProduct, btnCancel;
+    private Button btnSelectImage, btnAddProduct, btnCancel, btnImportXml;
     private DatabaseHelper databaseHelper;
-    private String selectedImagePath = "";
+    private DataRepository repository;
+    private ImageIngester imageIngester;
+    private ImageIngester.ProductImages selectedImages = null;
+    private boolean processingImage = false;
 
     private ActivityResultLauncher<Intent> imagePickerLauncher;
+    private ActivityResultLauncher<String[]> catalogPickerLauncher;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -39,11 +43,16 @@ public class AddProductActivity extends AppCompatActivity {
         setContentView(R.layout.activity_add_product);
 
         // Initialize Database
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
+        imageIngester = ImageIngester.getInstance(this);
 
         // Initialize Image Picker
         initImagePicker();
 
+        // Initialize XML Catalog Picker
+        initCatalogPicker();
+
         // Initialize Views
         initViews();
 
@@ -58,63 +67,74 @@ public class AddProductActivity extends AppCompatActivity {
                     if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                         Uri imageUri = result.getData().getData();
                         if (imageUri != null) {
-                            // ✅ Save image to internal storage
-                            selectedImagePath = saveImageToInternalStorage(imageUri);
-
-                            if (selectedImagePath != null && !selectedImagePath.isEmpty()) {
-                                // Load image using Glide
-                                Glide.with(AddProductActivity.this)
-                                        .load(new File(selectedImagePath))
-                                        .placeholder(android.R.drawable.ic_menu_gallery)
-                                        .error(android.R.drawable.ic_menu_gallery)
-                                        .into(ivProductImage);
-
-                                ivProductImage.setVisibility(View.VISIBLE);
-                                Toast.makeText(this, "Image selected successfully", Toast.LENGTH_SHORT).show();
-                            } else {
-                                Toast.makeText(this, "Failed to save image", Toast.LENGTH_SHORT).show();
-                            }
+                            processImage(imageUri);
                         }
                     }
                 }
         );
     }
 
-    // ✅ Save image to internal storage permanently
-    private String saveImageToInternalStorage(Uri imageUri) {
-        try {
-            InputStream inputStream = getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) return null;
-
-            // Create unique filename
-            String fileName = "product_" + System.currentTimeMillis() + ".jpg";
-            File directory = new File(getFilesDir(), "product_images");
-
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
+    private void initCatalogPicker() {
+        catalogPickerLauncher = registerForActivityResult(
+                new ActivityResultContracts.OpenDocument(),
+                uri -> {
+                    if (uri != null) {
+                        importCatalog(uri);
+                    }
+                }
+        );
+    }
 
-            File file = new File(directory, fileName);
+    // Import a supplier XML feed; a feed that was interrupted earlier resumes where it stopped
+    private void importCatalog(Uri uri) {
+        btnImportXml.setEnabled(false);
+        btnImportXml.setText("Importing...");
+
+        repository.importProductsXml(
+                () -> getContentResolver().openInputStream(uri),
+                uri.toString(),
+                (inserted, rowsPerSecond) -> btnImportXml.setText(
+                        "Importing... " + inserted + " (" + Math.round(rowsPerSecond) + "/s)"),
+                imported -> {
+                    btnImportXml.setEnabled(true);
+                    btnImportXml.setText("Import XML Catalog");
+                    if (imported != null && imported >= 0) {
+                        Toast.makeText(this, imported + " products imported", Toast.LENGTH_LONG).show();
+                    } else {
+                        Toast.makeText(this, "Failed to import catalog", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
 
-            // Copy image to internal storage
-            FileOutputStream outputStream = new FileOutputStream(file);
-            byte[] buffer = new byte[1024];
-            int length;
+    // ✅ Downsample, re-encode and save the image (plus thumbnails) in the background
+    private void processImage(Uri imageUri) {
+        processingImage = true;
+        btnSelectImage.setEnabled(false);
+        btnAddProduct.setEnabled(false);
 
-            while ((length = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, length);
+        imageIngester.ingest(imageUri, images -> {
+            if (isDestroyed()) {
+                return;
             }
-
-            outputStream.flush();
-            outputStream.close();
-            inputStream.close();
-
-            return file.getAbsolutePath();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+            processingImage = false;
+            btnSelectImage.setEnabled(true);
+            btnAddProduct.setEnabled(true);
+
+            if (images != null) {
+                selectedImages = images;
+                // Load image using Glide
+                Glide.with(AddProductActivity.this)
+                        .load(new File(images.detailImagePath))
+                        .placeholder(android.R.drawable.ic_menu_gallery)
+                        .error(android.R.drawable.ic_menu_gallery)
+                        .into(ivProductImage);
+
+                ivProductImage.setVisibility(View.VISIBLE);
+                Toast.makeText(this, "Image selected successfully", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "Failed to save image", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void initViews() {
@@ -125,6 +145,7 @@ public class AddProductActivity extends AppCompatActivity {
         btnSelectImage = findViewById(R.id.btnSelectImage);
         btnAddProduct = findViewById(R.id.btnAddProduct);
         btnCancel = findViewById(R.id.btnCancel);
+        btnImportXml = findViewById(R.id.btnImportXml);
     }
 
     private void setClickListeners() {
@@ -148,6 +169,13 @@ public class AddProductActivity extends AppCompatActivity {
                 finish();
             }
         });
+
+        btnImportXml.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                catalogPickerLauncher.launch(new String[]{"text/xml", "application/xml"});
+            }
+        });
     }
 
     private void openImagePicker() {
@@ -188,26 +216,37 @@ public class AddProductActivity extends AppCompatActivity {
         }
 
         // Create Product Object
-        Product product = new Product(name, description, price, selectedImagePath);
+        Product product = new Product(name, description, price, "");
+        if (selectedImages != null) {
+            selectedImages.applyTo(product);
+        }
 
         // Add to Database
-        boolean success = databaseHelper.addProduct(product);
-
-        if (success) {
-            Toast.makeText(this, "Product added successfully", Toast.LENGTH_SHORT).show();
-            clearFields();
-            finish();
-        } else {
-            Toast.makeText(this, "Failed to add product", Toast.LENGTH_SHORT).show();
-        }
+        btnAddProduct.setEnabled(false);
+        repository.addProduct(product, success -> {
+            btnAddProduct.setEnabled(!processingImage);
+            if (Boolean.TRUE.equals(success)) {
+                Toast.makeText(this, "Product added successfully", Toast.LENGTH_SHORT).show();
+                clearFields();
+                finish();
+            } else {
+                Toast.makeText(this, "Failed to add product", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void clearFields() {
         etProductName.setText("");
         etProductDescription.setText("");
         etProductPrice.setText("");
-        selectedImagePath = "";
+        selectedImages = null;
         ivProductImage.setImageDrawable(null);
         ivProductImage.setVisibility(View.GONE);
     }
+
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
+    }
 }
\ No newline at end of file
@@ -14,13 +14,13 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.CartStore;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
-import com.android.userdetails.model.Product;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.android.userdetails.model.CartItem;
+import com.android.userdetails.model.OrderItem;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CartActivity extends AppCompatActivity {
@@ -30,30 +30,34 @@ public class CartActivity extends AppCompatActivity {
     private Button btnPlaceOrder;
     private CartAdapter cartAdapter;
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
 
-    private List<Product> cartItems;
+    private CartStore cartStore;
+    private final List<CartItem> cartItems = new ArrayList<>();
+    private final CartStore.Listener cartListener = this::showCart;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_cart);
 
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
 
         recyclerViewCart = findViewById(R.id.recyclerViewCart);
         tvTotalPrice = findViewById(R.id.tvTotalPrice);
         btnPlaceOrder = findViewById(R.id.btnPlaceOrder);
 
-        cartItems = GuestShoppingActivity.getCartItems();
-
         recyclerViewCart.setLayoutManager(new LinearLayoutManager(this));
         cartAdapter = new CartAdapter(cartItems);
         recyclerViewCart.setAdapter(cartAdapter);
 
-        updateTotalPrice();
+        cartStore = CartStore.getInstance(this);
+        cartStore.addListener(cartListener);
+        showCart();
 
         btnPlaceOrder.setOnClickListener(v -> {
-            if (cartItems.isEmpty()) {
+            if (cartStore.isEmpty()) {
                 Toast.makeText(this, "Your cart is empty!", Toast.LENGTH_SHORT).show();
             } else {
                 showOrderDialog(); // ✅ Dialog দেখাবে
@@ -108,56 +112,55 @@ public class CartActivity extends AppCompatActivity {
 
     // ✅ Order database এ save করবে
     private void placeOrder(String phone, String address) {
-        try {
-            // Products কে JSON format এ convert করুন
-            JSONArray productsArray = new JSONArray();
-            for (Product product : cartItems) {
-                JSONObject productObj = new JSONObject();
-                productObj.put("id", product.getId());
-                productObj.put("name", product.getName());
-                productObj.put("price", product.getPrice());
-                productsArray.put(productObj);
-            }
-
-            String productsJson = productsArray.toString();
-            double total = calculateTotal();
+        // Cart এর products কে order line এ convert করুন
+        List<OrderItem> items = new ArrayList<>(cartItems.size());
+        for (CartItem item : cartItems) {
+            items.add(new OrderItem(item.getProductId(), item.getName(), item.getUnitPrice(), item.getQuantity()));
+        }
 
-            // Database এ save করুন
-            long orderId = databaseHelper.addOrder(phone, address, productsJson, total);
+        double total = cartStore.getTotal();
 
-            if (orderId > 0) {
+        // Database এ save করুন
+        btnPlaceOrder.setEnabled(false);
+        repository.addOrder(phone, address, items, total, orderId -> {
+            btnPlaceOrder.setEnabled(true);
+            if (orderId != null && orderId > 0) {
                 Toast.makeText(this, "Order placed successfully! Order #" + orderId,
                         Toast.LENGTH_LONG).show();
-                GuestShoppingActivity.clearCart();
+                cartStore.clear();
                 finish();
             } else {
                 Toast.makeText(this, "Failed to place order!", Toast.LENGTH_SHORT).show();
             }
+        });
+    }
 
-        } catch (JSONException e) {
-            e.printStackTrace();
-            Toast.makeText(this, "Error placing order!", Toast.LENGTH_SHORT).show();
-        }
+    // The store keeps the total up to date, so there is nothing to add up here
+    private void showCart() {
+        cartItems.clear();
+        cartItems.addAll(cartStore.getItems());
+        cartAdapter.notifyDataSetChanged();
+        tvTotalPrice.setText("Total: ৳ " + String.format("%.2f", cartStore.getTotal()));
     }
 
-    private void updateTotalPrice() {
-        double total = calculateTotal();
-        tvTotalPrice.setText("Total: ৳ " + String.format("%.2f", total));
+    @Override
+    protected void onPause() {
+        super.onPause();
+        cartStore.flush();
     }
 
-    private double calculateTotal() {
-        double total = 0;
-        for (Product product : cartItems) {
-            total += product.getPrice();
-        }
-        return total;
+    @Override
+    protected void onDestroy() {
+        cartStore.removeListener(cartListener);
+        repository.cancelAll();
+        super.onDestroy();
     }
 
     // Simple adapter for showing cart items
     private class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder> {
-        private List<Product> items;
+        private List<CartItem> items;
 
-        public CartAdapter(List<Product> items) {
+        public CartAdapter(List<CartItem> items) {
             this.items = items;
         }
 
@@ -170,9 +173,17 @@ public class CartActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(CartViewHolder holder, int position) {
-            Product product = items.get(position);
-            holder.tvName.setText(product.getName());
-            holder.tvPrice.setText("৳ " + String.format("%.2f", product.getPrice()));
+            CartItem item = items.get(position);
+            holder.tvName.setText(item.getName());
+            holder.tvQuantity.setText(String.valueOf(item.getQuantity()));
+            holder.tvPrice.setText("৳ " + String.format("%.2f", item.getLineTotal()));
+
+            int productId = item.getProductId();
+            holder.btnIncrease.setOnClickListener(v ->
+                    cartStore.setQuantity(productId, cartStore.getQuantity(productId) + 1));
+            // Down to zero removes the line
+            holder.btnDecrease.setOnClickListener(v ->
+                    cartStore.setQuantity(productId, cartStore.getQuantity(productId) - 1));
         }
 
         @Override
@@ -181,12 +192,15 @@ public class CartActivity extends AppCompatActivity {
         }
 
         class CartViewHolder extends RecyclerView.ViewHolder {
-            TextView tvName, tvPrice;
+            TextView tvName, tvPrice, tvQuantity, btnDecrease, btnIncrease;
 
             public CartViewHolder(android.view.View itemView) {
                 super(itemView);
                 tvName = itemView.findViewById(R.id.tvCartProductName);
                 tvPrice = itemView.findViewById(R.id.tvCartProductPrice);
+                tvQuantity = itemView.findViewById(R.id.tvCartQuantity);
+                btnDecrease = itemView.findViewById(R.id.btnCartDecrease);
+                btnIncrease = itemView.findViewById(R.id.btnCartIncrease);
             }
         }
     }
@@ -12,6 +12,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
 import com.android.userdetails.model.User;
 
@@ -24,6 +25,7 @@ public class DashboardActivity extends AppCompatActivity {
 
     // Database Helper
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
 
     // User Data
     private String userEmail;
@@ -39,7 +41,8 @@ public class DashboardActivity extends AppCompatActivity {
         setContentView(R.layout.activity_dashboard);
 
         // Initialize Database
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
 
         // Initialize SharedPreferences
         sharedPreferences = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
@@ -90,7 +93,11 @@ public class DashboardActivity extends AppCompatActivity {
 
     private void loadUserData() {
         // Get User from Database
-        currentUser = databaseHelper.getUserByEmail(userEmail);
+        repository.getUserByEmail(userEmail, this::showUserData);
+    }
+
+    private void showUserData(User user) {
+        currentUser = user;
 
         if (currentUser != null) {
             // Display User Information
@@ -228,6 +235,12 @@ public class DashboardActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
+    }
+
     @Override
     public void onBackPressed() {
         // Show exit confirmation dialog
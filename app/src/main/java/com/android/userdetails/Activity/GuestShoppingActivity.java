@@ -11,15 +11,25 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.userdetails.R;
+import com.android.userdetails.StartupTrace;
+import com.android.userdetails.db.CartStore;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
 import com.android.userdetails.model.Product;
+import com.android.userdetails.ui.ProductDiffCallback;
+import com.android.userdetails.ui.ProductPageLoader;
+import com.android.userdetails.ui.ProductImagePreloader;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -31,21 +41,30 @@ public class GuestShoppingActivity extends AppCompatActivity {
     private GuestProductAdapter adapter;
     private List<Product> productList;
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
+    private ProductPageLoader pageLoader;
+    private RequestManager glide;
+    private final ViewPreloadSizeProvider<File> preloadSizes = new ViewPreloadSizeProvider<>();
     private LinearLayout llNoProducts;
     private TextView tvProductCount;
     private CardView cvProductCount;
     private TextView tvCartCount;
     private CardView cvCart; // ✅ Fixed: define cvCart
 
-    // Cart items
-    private static List<Product> cartItems = new ArrayList<>();
+    // Cart (shared with CartActivity, saved in the database)
+    private CartStore cartStore;
+    private final CartStore.Listener cartListener = this::updateCartCount;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_guest_shopping);
 
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
+        glide = Glide.with(this);
+        cartStore = CartStore.getInstance(this);
+        cartStore.addListener(cartListener);
         initViews();
         loadProducts();
     }
@@ -60,9 +79,16 @@ public class GuestShoppingActivity extends AppCompatActivity {
 
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         productList = new ArrayList<>();
-        adapter = new GuestProductAdapter(productList);
+        adapter = new GuestProductAdapter();
         recyclerView.setAdapter(adapter);
 
+        pageLoader = new ProductPageLoader(repository, this::showProductsPage);
+        pageLoader.attachTo(recyclerView);
+
+        // Decode the next rows' thumbnails before they scroll into view
+        recyclerView.addOnScrollListener(
+                ProductImagePreloader.create(glide, adapter, preloadSizes));
+
         Button btnLogin = findViewById(R.id.btnLogin);
         btnLogin.setOnClickListener(v -> {
             Intent intent = new Intent(GuestShoppingActivity.this, LoginActivity.class);
@@ -78,11 +104,29 @@ public class GuestShoppingActivity extends AppCompatActivity {
     }
 
     private void loadProducts() {
-        productList.clear();
-        productList.addAll(databaseHelper.getAllProducts());
-        adapter.notifyDataSetChanged();
+        pageLoader.reload();
+        repository.getProductCount(this::showProductCount);
+    }
 
-        if (productList.isEmpty()) {
+    private void showProductsPage(List<Product> page, boolean firstPage) {
+        if (firstPage) {
+            productList.clear();
+        }
+        productList.addAll(page);
+        // A copy: ListAdapter diffs the next list against the one it holds,
+        // in the background, and rebinds only the rows that changed
+        adapter.submitList(new ArrayList<>(productList));
+        if (firstPage && !page.isEmpty()) {
+            StartupTrace.onFirstProductsBound(recyclerView);
+            reportFullyDrawn();
+        }
+    }
+
+    private void showProductCount(Integer count) {
+        if (count == null) {
+            return; // failed; keep what is shown
+        }
+        if (count == 0) {
             llNoProducts.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
             cvProductCount.setVisibility(View.GONE);
@@ -90,15 +134,16 @@ public class GuestShoppingActivity extends AppCompatActivity {
             llNoProducts.setVisibility(View.GONE);
             recyclerView.setVisibility(View.VISIBLE);
             cvProductCount.setVisibility(View.VISIBLE);
-            tvProductCount.setText(String.valueOf(productList.size()));
+            tvProductCount.setText(String.valueOf(count));
         }
     }
 
     private void updateCartCount() {
         if (tvCartCount != null) {
-            if (cartItems.size() > 0) {
+            int units = cartStore.getUnitCount();
+            if (units > 0) {
                 tvCartCount.setVisibility(View.VISIBLE);
-                tvCartCount.setText(String.valueOf(cartItems.size()));
+                tvCartCount.setText(String.valueOf(units));
             } else {
                 tvCartCount.setVisibility(View.GONE);
             }
@@ -106,68 +151,82 @@ public class GuestShoppingActivity extends AppCompatActivity {
     }
 
     private void addToCart(Product product) {
-        boolean alreadyInCart = false;
-        for (Product item : cartItems) {
-            if (item.getId() == product.getId()) {
-                alreadyInCart = true;
-                break;
-            }
-        }
-
-        if (!alreadyInCart) {
-            cartItems.add(product);
+        int quantity = cartStore.add(product);
+        if (quantity == 1) {
             Toast.makeText(this, product.getName() + " added to cart!", Toast.LENGTH_SHORT).show();
-            updateCartCount();
         } else {
-            Toast.makeText(this, "Already in cart!", Toast.LENGTH_SHORT).show();
+            Toast.makeText(this, product.getName() + " x" + quantity + " in cart", Toast.LENGTH_SHORT).show();
         }
     }
 
-    public static List<Product> getCartItems() {
-        return cartItems;
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Skip the reload when the catalog did not change while we were away
+        if (pageLoader.reloadIfChanged()) {
+            repository.getProductCount(this::showProductCount);
+        }
+        updateCartCount();
     }
 
-    public static void clearCart() {
-        cartItems.clear();
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Don't leave cart taps waiting for the write delay
+        cartStore.flush();
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadProducts();
-        updateCartCount();
+    protected void onDestroy() {
+        cartStore.removeListener(cartListener);
+        repository.cancelAll();
+        super.onDestroy();
     }
 
     // Recycler Adapter
-    private class GuestProductAdapter extends RecyclerView.Adapter<GuestProductAdapter.ProductViewHolder> {
+    private class GuestProductAdapter extends ListAdapter<Product, GuestProductAdapter.ProductViewHolder> {
 
-        private List<Product> products;
+        public GuestProductAdapter() {
+            super(new ProductDiffCallback());
+            setHasStableIds(true);
+        }
 
-        public GuestProductAdapter(List<Product> products) {
-            this.products = products;
+        @Override
+        public long getItemId(int position) {
+            return getItem(position).getId();
         }
 
         @Override
         public ProductViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
             View view = LayoutInflater.from(parent.getContext())
                     .inflate(R.layout.item_guest_product, parent, false);
-            return new ProductViewHolder(view);
+            ProductViewHolder holder = new ProductViewHolder(view);
+            // Preloads are decoded at the size rows are drawn at
+            preloadSizes.setView(holder.ivProductImage);
+            return holder;
         }
 
         @Override
         public void onBindViewHolder(ProductViewHolder holder, int position) {
-            holder.bind(products.get(position));
+            holder.bind(getItem(position));
         }
 
         @Override
-        public int getItemCount() {
-            return products.size();
+        public void onBindViewHolder(@NonNull ProductViewHolder holder, int position,
+                                     @NonNull List<Object> payloads) {
+            if (payloads.isEmpty() || !payloads.contains(ProductDiffCallback.PAYLOAD_TEXT)) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+            // Same image: leave it alone rather than asking Glide again
+            holder.bindText(getItem(position));
         }
 
         class ProductViewHolder extends RecyclerView.ViewHolder {
             TextView tvProductName, tvProductDescription, tvProductPrice;
             ImageView ivProductImage;
             Button btnAddToCart;
+            Product product;
 
             public ProductViewHolder(View itemView) {
                 super(itemView);
@@ -176,28 +235,30 @@ public class GuestShoppingActivity extends AppCompatActivity {
                 tvProductPrice = itemView.findViewById(R.id.tvProductPrice);
                 ivProductImage = itemView.findViewById(R.id.ivProductImage);
                 btnAddToCart = itemView.findViewById(R.id.btnAddToCart);
+
+                btnAddToCart.setOnClickListener(v -> addToCart(product));
             }
 
             public void bind(final Product product) {
-                tvProductName.setText(product.getName());
-                tvProductDescription.setText(product.getDescription());
-                tvProductPrice.setText("৳ " + String.format("%.2f", product.getPrice()));
-
-                if (product.getImage() != null && !product.getImage().isEmpty()) {
-                    File imageFile = new File(product.getImage());
-                    if (imageFile.exists()) {
-                        Glide.with(itemView.getContext())
-                                .load(imageFile)
-                                .placeholder(android.R.drawable.ic_menu_gallery)
-                                .into(ivProductImage);
-                    } else {
-                        ivProductImage.setImageResource(android.R.drawable.ic_menu_gallery);
-                    }
+                bindText(product);
+
+                // List-size thumbnail when there is one. Whether the file is
+                // still there was checked in the background; no disk access here
+                if (product.hasLoadableImage()) {
+                    ProductImagePreloader.listImageRequest(glide, new File(product.getListImage()))
+                            .error(android.R.drawable.ic_menu_gallery)
+                            .into(ivProductImage);
                 } else {
+                    glide.clear(ivProductImage);
                     ivProductImage.setImageResource(android.R.drawable.ic_menu_gallery);
                 }
+            }
 
-                btnAddToCart.setOnClickListener(v -> addToCart(product));
+            public void bindText(final Product product) {
+                this.product = product;
+                tvProductName.setText(product.getName());
+                tvProductDescription.setText(product.getDescription());
+                tvProductPrice.setText("৳ " + String.format("%.2f", product.getPrice()));
             }
         }
     }
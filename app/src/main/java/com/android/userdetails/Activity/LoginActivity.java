@@ -14,6 +14,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
 import com.android.userdetails.model.User;
 import com.google.android.material.textfield.TextInputEditText;
@@ -28,6 +29,7 @@ public class LoginActivity extends AppCompatActivity {
 
     // Database Helper
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
 
     // SharedPreferences for Remember Me
     private SharedPreferences sharedPreferences;
@@ -43,7 +45,8 @@ public class LoginActivity extends AppCompatActivity {
         setContentView(R.layout.activity_login);
 
         // Initialize Database
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
 
         // Initialize SharedPreferences
         sharedPreferences = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
@@ -150,8 +153,18 @@ public class LoginActivity extends AppCompatActivity {
         }
 
         // Check User Credentials
-        boolean isValidUser = databaseHelper.checkUser(email, password);
+        btnLogin.setEnabled(false);
+        repository.checkUser(email, password, isValidUser -> {
+            btnLogin.setEnabled(true);
+            if (isValidUser == null) {
+                Toast.makeText(this, "Login failed. Please try again", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            onLoginChecked(email, password, isValidUser);
+        });
+    }
 
+    private void onLoginChecked(String email, String password, boolean isValidUser) {
         if (isValidUser) {
             // Save Login Session
             saveLoginSession(email, password);
@@ -193,6 +206,12 @@ public class LoginActivity extends AppCompatActivity {
         finish();
     }
 
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
+    }
+
     @Override
     public void onBackPressed() {
         // Exit app on back press from login screen
@@ -10,28 +10,28 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
 import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.ui.OrderDiffCallback;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.util.ArrayList;
 import java.util.List;
 
 public class OrdersActivity extends AppCompatActivity {
 
     private RecyclerView recyclerViewOrders;
     private OrdersAdapter adapter;
-    private List<Order> orderList;
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
     private LinearLayout llNoOrders;
     private TextView tvOrderCount;
 
@@ -40,10 +40,12 @@ public class OrdersActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_orders);
 
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
 
         initViews();
-        loadOrders();
+        // Re-queried after every order write while this screen is visible
+        repository.observeAllOrders().observe(this, this::showOrders);
     }
 
     private void initViews() {
@@ -52,17 +54,15 @@ public class OrdersActivity extends AppCompatActivity {
         tvOrderCount = findViewById(R.id.tvOrderCount);
 
         recyclerViewOrders.setLayoutManager(new LinearLayoutManager(this));
-        orderList = new ArrayList<>();
-        adapter = new OrdersAdapter(orderList);
+        adapter = new OrdersAdapter();
         recyclerViewOrders.setAdapter(adapter);
     }
 
-    private void loadOrders() {
-        orderList.clear();
-        orderList.addAll(databaseHelper.getAllOrders());
-        adapter.notifyDataSetChanged();
+    private void showOrders(List<Order> orders) {
+        // Diffed in the background; only changed rows are rebound
+        adapter.submitList(orders);
 
-        if (orderList.isEmpty()) {
+        if (orders.isEmpty()) {
             llNoOrders.setVisibility(View.VISIBLE);
             recyclerViewOrders.setVisibility(View.GONE);
             tvOrderCount.setVisibility(View.GONE);
@@ -70,7 +70,7 @@ public class OrdersActivity extends AppCompatActivity {
             llNoOrders.setVisibility(View.GONE);
             recyclerViewOrders.setVisibility(View.VISIBLE);
             tvOrderCount.setVisibility(View.VISIBLE);
-            tvOrderCount.setText("Total Orders: " + orderList.size());
+            tvOrderCount.setText("Total Orders: " + orders.size());
         }
     }
 
@@ -98,22 +98,26 @@ public class OrdersActivity extends AppCompatActivity {
         tvDate.setText(order.getOrderDate());
         tvStatus.setText(order.getStatus());
 
-        // Parse and display products
-        try {
-            JSONArray productsArray = new JSONArray(order.getProducts());
+        // Load and display products
+        repository.getOrderItems(order.getId(), items -> {
+            if (items == null) {
+                tvProducts.setText("Could not load the products");
+                return;
+            }
             StringBuilder productsText = new StringBuilder();
-            for (int i = 0; i < productsArray.length(); i++) {
-                JSONObject product = productsArray.getJSONObject(i);
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
                 productsText.append((i + 1)).append(". ")
-                        .append(product.getString("name"))
-                        .append(" - ৳")
-                        .append(String.format("%.2f", product.getDouble("price")))
+                        .append(item.getName());
+                if (item.getQuantity() > 1) {
+                    productsText.append(" x").append(item.getQuantity());
+                }
+                productsText.append(" - ৳")
+                        .append(String.format("%.2f", item.getLineTotal()))
                         .append("\n");
             }
             tvProducts.setText(productsText.toString().trim());
-        } catch (JSONException e) {
-            tvProducts.setText("Error loading products");
-        }
+        });
 
         AlertDialog dialog = builder.create();
         btnClose.setOnClickListener(v -> dialog.dismiss());
@@ -121,41 +125,38 @@ public class OrdersActivity extends AppCompatActivity {
     }
 
     // ✅ Change Status Dialog
-    private void showChangeStatusDialog(Order order, int position) {
+    private void showChangeStatusDialog(Order order) {
         String[] statuses = {"Pending", "Confirmed", "Delivered", "Cancelled"};
 
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Change Order Status");
         builder.setItems(statuses, (dialog, which) -> {
             String newStatus = statuses[which];
-            databaseHelper.updateOrderStatus(order.getId(), newStatus);
-            order.setStatus(newStatus);
-            adapter.notifyItemChanged(position);
-            Toast.makeText(this, "Status updated to: " + newStatus, Toast.LENGTH_SHORT).show();
+            repository.updateOrderStatus(order.getId(), newStatus, success -> {
+                if (Boolean.TRUE.equals(success)) {
+                    Toast.makeText(this, "Status updated to: " + newStatus, Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, "Status update failed", Toast.LENGTH_SHORT).show();
+                }
+            });
         });
         builder.show();
     }
 
     // ✅ Delete Order Dialog
-    private void showDeleteOrderDialog(Order order, int position) {
+    private void showDeleteOrderDialog(Order order) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Delete Order");
         builder.setMessage("Are you sure you want to delete Order #" + order.getId() + "?");
 
         builder.setPositiveButton("Delete", (dialog, which) -> {
-            databaseHelper.deleteOrder(order.getId());
-            orderList.remove(position);
-            adapter.notifyItemRemoved(position);
-            Toast.makeText(this, "Order deleted", Toast.LENGTH_SHORT).show();
-
-            // Update UI if no orders
-            if (orderList.isEmpty()) {
-                llNoOrders.setVisibility(View.VISIBLE);
-                recyclerViewOrders.setVisibility(View.GONE);
-                tvOrderCount.setVisibility(View.GONE);
-            } else {
-                tvOrderCount.setText("Total Orders: " + orderList.size());
-            }
+            repository.deleteOrder(order.getId(), success -> {
+                if (Boolean.TRUE.equals(success)) {
+                    Toast.makeText(this, "Order deleted", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, "Delete failed", Toast.LENGTH_SHORT).show();
+                }
+            });
         });
 
         builder.setNegativeButton("Cancel", null);
@@ -163,18 +164,22 @@ public class OrdersActivity extends AppCompatActivity {
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadOrders();
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
     }
 
     // ✅ Orders RecyclerView Adapter
-    private class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewHolder> {
+    private class OrdersAdapter extends ListAdapter<Order, OrdersAdapter.OrderViewHolder> {
 
-        private List<Order> orders;
+        public OrdersAdapter() {
+            super(new OrderDiffCallback());
+            setHasStableIds(true);
+        }
 
-        public OrdersAdapter(List<Order> orders) {
-            this.orders = orders;
+        @Override
+        public long getItemId(int position) {
+            return getItem(position).getId();
         }
 
         @Override
@@ -186,18 +191,25 @@ public class OrdersActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(OrderViewHolder holder, int position) {
-            holder.bind(orders.get(position), position);
+            holder.bind(getItem(position));
         }
 
         @Override
-        public int getItemCount() {
-            return orders.size();
+        public void onBindViewHolder(@NonNull OrderViewHolder holder, int position,
+                                     @NonNull List<Object> payloads) {
+            if (payloads.isEmpty() || !payloads.contains(OrderDiffCallback.PAYLOAD_STATUS)) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+            holder.bindStatus(getItem(position));
         }
 
         class OrderViewHolder extends RecyclerView.ViewHolder {
             TextView tvOrderId, tvPhone, tvTotal, tvDate, tvStatus;
             Button btnViewDetails, btnChangeStatus, btnDelete;
             CardView cardOrder;
+            // The order as last bound; a status-only rebind replaces it too
+            Order order;
 
             public OrderViewHolder(View itemView) {
                 super(itemView);
@@ -210,13 +222,23 @@ public class OrdersActivity extends AppCompatActivity {
                 btnChangeStatus = itemView.findViewById(R.id.btnChangeStatus);
                 btnDelete = itemView.findViewById(R.id.btnDeleteOrder);
                 cardOrder = itemView.findViewById(R.id.cardOrder);
+
+                btnViewDetails.setOnClickListener(v -> showOrderDetailsDialog(order));
+                btnChangeStatus.setOnClickListener(v -> showChangeStatusDialog(order));
+                btnDelete.setOnClickListener(v -> showDeleteOrderDialog(order));
             }
 
-            public void bind(final Order order, final int position) {
+            public void bind(final Order order) {
                 tvOrderId.setText("Order #" + order.getId());
                 tvPhone.setText("Phone: " + order.getPhoneNumber());
                 tvTotal.setText("Total: ৳ " + String.format("%.2f", order.getTotalPrice()));
                 tvDate.setText(order.getOrderDate());
+                bindStatus(order);
+            }
+
+            // Status text and color only, for a status-only change
+            public void bindStatus(final Order order) {
+                this.order = order;
                 tvStatus.setText(order.getStatus());
 
                 // Status color
@@ -234,10 +256,6 @@ public class OrdersActivity extends AppCompatActivity {
                         tvStatus.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
                         break;
                 }
-
-                btnViewDetails.setOnClickListener(v -> showOrderDetailsDialog(order));
-                btnChangeStatus.setOnClickListener(v -> showChangeStatusDialog(order, position));
-                btnDelete.setOnClickListener(v -> showDeleteOrderDialog(order, position));
             }
         }
     }
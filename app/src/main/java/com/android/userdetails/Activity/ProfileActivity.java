@@ -14,6 +14,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
 import com.android.userdetails.model.User;
 import com.google.android.material.textfield.TextInputEditText;
@@ -40,6 +41,7 @@ public class ProfileActivity extends AppCompatActivity {
     private Button btnSaveAll, btnBack;
 
     private DatabaseHelper db;
+    private DataRepository repository;
     private SharedPreferences sharedPreferences;
     private String userEmail;
 
@@ -52,7 +54,8 @@ public class ProfileActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_profile);
 
-        db = new DatabaseHelper(this);
+        db = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(db);
         sharedPreferences = getSharedPreferences("LoginPrefs", MODE_PRIVATE);
         userEmail = sharedPreferences.getString("email", "");
 
@@ -139,8 +142,10 @@ public class ProfileActivity extends AppCompatActivity {
     }
 
     private void loadUserData() {
-        User user = db.getUserByEmail(userEmail);
+        repository.getUserByEmail(userEmail, this::showUserData);
+    }
 
+    private void showUserData(User user) {
         if (user != null) {
             Log.d(TAG, "Loading user data: " + user.toString());
 
@@ -197,15 +202,16 @@ public class ProfileActivity extends AppCompatActivity {
             return;
         }
 
-        boolean basicUpdated = db.updateBasicInfo(userEmail, name, phone, gender);
-        boolean profileUpdated = db.updateUserProfile(userEmail, address, dob, null, null, null);
-
-        if (basicUpdated || profileUpdated) {
-            Toast.makeText(this, "Profile saved successfully!", Toast.LENGTH_SHORT).show();
-            finish();
-        } else {
-            Toast.makeText(this, "Failed to save profile. Try again.", Toast.LENGTH_SHORT).show();
-        }
+        btnSaveAll.setEnabled(false);
+        repository.updateProfile(userEmail, name, phone, gender, address, dob, saved -> {
+            btnSaveAll.setEnabled(true);
+            if (Boolean.TRUE.equals(saved)) {
+                Toast.makeText(this, "Profile saved successfully!", Toast.LENGTH_SHORT).show();
+                finish();
+            } else {
+                Toast.makeText(this, "Failed to save profile. Try again.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private boolean isValidDate(String dateStr) {
@@ -15,6 +15,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
 import com.android.userdetails.model.User;
 import com.google.android.material.textfield.TextInputEditText;
@@ -30,6 +31,7 @@ public class RegisterActivity extends AppCompatActivity {
 
     // Database Helper
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,7 +39,8 @@ public class RegisterActivity extends AppCompatActivity {
         setContentView(R.layout.activity_register);
 
         // Initialize Database
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
 
         // Initialize Views
         initViews();
@@ -170,19 +173,32 @@ public class RegisterActivity extends AppCompatActivity {
         }
 
         // Check if Email Already Exists
-        if (databaseHelper.checkEmail(email)) {
-            etEmail.setError("Email already registered");
-            etEmail.requestFocus();
-            Toast.makeText(this, "This email is already registered", Toast.LENGTH_SHORT).show();
-            return;
-        }
-
+        btnRegister.setEnabled(false);
+        repository.checkEmail(email, exists -> {
+            if (exists == null) {
+                btnRegister.setEnabled(true);
+                Toast.makeText(this, "Registration Failed. Please try again", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            if (exists) {
+                btnRegister.setEnabled(true);
+                etEmail.setError("Email already registered");
+                etEmail.requestFocus();
+                Toast.makeText(this, "This email is already registered", Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-        User user = new User(name, email, password, phone, gender);
+            User user = new User(name, email, password, phone, gender);
 
-        // Insert User into Database
-        boolean isInserted = databaseHelper.registerUser(user);
+            // Insert User into Database
+            repository.registerUser(user, isInserted -> {
+                btnRegister.setEnabled(true);
+                onRegistered(email, Boolean.TRUE.equals(isInserted));
+            });
+        });
+    }
 
+    private void onRegistered(String email, boolean isInserted) {
         if (isInserted) {
             Toast.makeText(this, "Registration Successful!", Toast.LENGTH_LONG).show();
 
@@ -208,6 +224,12 @@ public class RegisterActivity extends AppCompatActivity {
         rgGender.clearCheck();
     }
 
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
+    }
+
     @Override
     public void onBackPressed() {
         // Go to Login Activity
@@ -15,11 +15,20 @@ import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.cardview.widget.CardView;
 
+import com.android.userdetails.BuildConfig;
 import com.android.userdetails.R;
+import com.android.userdetails.data.DatasetSpec;
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.db.DataRepository;
+import com.android.userdetails.db.DatabaseHelper;
+import com.android.userdetails.db.SyntheticDataLoader;
+import com.android.userdetails.image.ImageIngester;
+import com.google.android.material.button.MaterialButton;
 
 import java.util.Locale;
 
@@ -30,7 +39,9 @@ public class SettingsActivity extends AppCompatActivity {
     private SeekBar seekBarBrightness;
     private TextView tvBrightnessValue, tvSettingsTitle;
     private ImageView imgBack;
-    private CardView cardTheme, cardLanguage, cardFontSize, cardBrightness;
+    private CardView cardTheme, cardLanguage, cardFontSize, cardBrightness, cardTestData;
+    private TextView tvTestDataStatus;
+    private MaterialButton btnGenerateTestData;
 
     // SharedPreferences
     private SharedPreferences sharedPreferences;
@@ -40,6 +51,9 @@ public class SettingsActivity extends AppCompatActivity {
     private static final String KEY_FONT_SIZE = "font_size";
     private static final String KEY_BRIGHTNESS = "brightness";
 
+    // Same seed every time, so every device gets the same test data
+    private static final long TEST_DATA_SEED = 42;
+
     // Flag to prevent multiple recreations
     private boolean isInitialLoad = true;
 
@@ -68,6 +82,9 @@ public class SettingsActivity extends AppCompatActivity {
 
         // Set Click Listeners
         setClickListeners();
+
+        // Test data generator (debug builds only)
+        setupTestData();
     }
 
     private void initViews() {
@@ -78,6 +95,7 @@ public class SettingsActivity extends AppCompatActivity {
         cardLanguage = findViewById(R.id.cardLanguage);
         cardFontSize = findViewById(R.id.cardFontSize);
         cardBrightness = findViewById(R.id.cardBrightness);
+        cardTestData = findViewById(R.id.cardTestData);
 
         spinnerTheme = findViewById(R.id.spinnerTheme);
         spinnerLanguage = findViewById(R.id.spinnerLanguage);
@@ -85,6 +103,9 @@ public class SettingsActivity extends AppCompatActivity {
 
         seekBarBrightness = findViewById(R.id.seekBarBrightness);
         tvBrightnessValue = findViewById(R.id.tvBrightnessValue);
+
+        tvTestDataStatus = findViewById(R.id.tvTestDataStatus);
+        btnGenerateTestData = findViewById(R.id.btnGenerateTestData);
     }
 
     private void setupSpinners() {
@@ -207,6 +228,63 @@ public class SettingsActivity extends AppCompatActivity {
         });
     }
 
+    // Test Data Methods
+    private void setupTestData() {
+        if (!BuildConfig.DEBUG) {
+            return;
+        }
+        cardTestData.setVisibility(View.VISIBLE);
+        btnGenerateTestData.setOnClickListener(v -> chooseTestDataSize());
+        // The load outlives this screen; pick up where it is after a recreate
+        DataRepository.observeSyntheticLoad().observe(this, this::showTestDataStatus);
+    }
+
+    private void chooseTestDataSize() {
+        long now = System.currentTimeMillis();
+        DatasetSpec[] specs = {
+                DatasetSpec.small(TEST_DATA_SEED, now),
+                DatasetSpec.production(TEST_DATA_SEED, now)
+        };
+        String[] labels = new String[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            labels[i] = specs[i].getProductCount() + " products, " + specs[i].getOrderCount() + " orders";
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Generate Test Data")
+                .setItems(labels, (dialog, which) -> generateTestData(specs[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Adds to the current data; users can sign in with SyntheticDataset.USER_PASSWORD
+    private void generateTestData(DatasetSpec spec) {
+        if (!DataRepository.startSyntheticLoad(DatabaseHelper.getInstance(this),
+                new SyntheticDataset(spec), ImageIngester.getInstance(this))) {
+            Toast.makeText(this, "Test data is already being generated", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void showTestDataStatus(SyntheticDataLoader.Status status) {
+        if (status == null) {
+            return;
+        }
+        btnGenerateTestData.setEnabled(!status.running);
+        if (status.running) {
+            getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+            tvTestDataStatus.setText(status.table == null ? "Preparing images..."
+                    : "Writing " + status.table + "... " + status.written + " / " + status.total);
+            return;
+        }
+        getWindow().clearFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+        if (status.result != null) {
+            tvTestDataStatus.setText("Added " + status.result
+                    + ". Password: " + SyntheticDataset.USER_PASSWORD);
+        } else {
+            tvTestDataStatus.setText("Failed to generate test data");
+        }
+    }
+
     // Theme Methods
     private void saveTheme(String theme) {
         SharedPreferences.Editor editor = sharedPreferences.edit();
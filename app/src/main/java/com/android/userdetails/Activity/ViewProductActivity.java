@@ -5,6 +5,7 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -17,16 +18,24 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.android.userdetails.R;
+import com.android.userdetails.db.DataRepository;
 import com.android.userdetails.db.DatabaseHelper;
+import com.android.userdetails.image.ImageIngester;
+import com.android.userdetails.image.ProductImageStore;
+import com.android.userdetails.ui.ProductImagePreloader;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.android.userdetails.model.Product;
+import com.android.userdetails.ui.ProductDiffCallback;
+import com.android.userdetails.ui.ProductPageLoader;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,13 +44,18 @@ public class ViewProductActivity extends AppCompatActivity {
     private ProductAdapter adapter;
     private List<Product> productList;
     private DatabaseHelper databaseHelper;
+    private DataRepository repository;
+    private ProductPageLoader pageLoader;
+    private RequestManager glide;
+    private final ViewPreloadSizeProvider<File> preloadSizes = new ViewPreloadSizeProvider<>();
+    private ImageIngester imageIngester;
     private LinearLayout tvNoProducts;
     private TextView tvProductCount;
     private View cvProductCount;
 
     // For Edit Image
     private ActivityResultLauncher<Intent> editImagePickerLauncher;
-    private String tempEditImagePath = "";
+    private ImageIngester.ProductImages tempEditImages = null; // null keeps the current image
     private Product editingProduct = null;
     private ImageView currentEditImageView = null; // Keep reference to ImageView
 
@@ -51,7 +65,10 @@ public class ViewProductActivity extends AppCompatActivity {
         setContentView(R.layout.activity_view_product);
 
         // Initialize Database
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = new DataRepository(databaseHelper);
+        glide = Glide.with(this);
+        imageIngester = ImageIngester.getInstance(this);
 
         // Initialize Edit Image Picker
         initEditImagePicker();
@@ -84,62 +101,38 @@ public class ViewProductActivity extends AppCompatActivity {
                     if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                         Uri imageUri = result.getData().getData();
                         if (imageUri != null && editingProduct != null) {
-                            tempEditImagePath = saveImageToInternalStorage(imageUri);
-                            if (tempEditImagePath != null && !tempEditImagePath.isEmpty()) {
-                                Toast.makeText(this, "New image selected", Toast.LENGTH_SHORT).show();
-
-                                // Update the ImageView directly instead of recreating dialog
-                                if (currentEditImageView != null) {
-                                    File imageFile = new File(tempEditImagePath);
-                                    if (imageFile.exists()) {
-                                        Glide.with(this)
-                                                .load(imageFile)
-                                                .placeholder(android.R.drawable.ic_menu_gallery)
-                                                .error(android.R.drawable.ic_menu_gallery)
-                                                .into(currentEditImageView);
-                                        currentEditImageView.setVisibility(View.VISIBLE);
-                                    }
-                                }
-                            }
+                            processEditImage(imageUri, editingProduct);
                         }
                     }
                 }
         );
     }
 
-    // Save image to internal storage
-    private String saveImageToInternalStorage(Uri imageUri) {
-        try {
-            InputStream inputStream = getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) return null;
-
-            String fileName = "product_" + System.currentTimeMillis() + ".jpg";
-            File directory = new File(getFilesDir(), "product_images");
-
-            if (!directory.exists()) {
-                directory.mkdirs();
+    // Downsample, re-encode and save the new image (plus thumbnails) in the background
+    private void processEditImage(Uri imageUri, Product product) {
+        Toast.makeText(this, "Processing image...", Toast.LENGTH_SHORT).show();
+        imageIngester.ingest(imageUri, images -> {
+            // Dropped if the dialog was closed (or another product opened) meanwhile
+            if (isDestroyed() || editingProduct != product) {
+                return;
             }
-
-            File file = new File(directory, fileName);
-
-            FileOutputStream outputStream = new FileOutputStream(file);
-            byte[] buffer = new byte[1024];
-            int length;
-
-            while ((length = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, length);
+            if (images == null) {
+                Toast.makeText(this, "Failed to save image", Toast.LENGTH_SHORT).show();
+                return;
             }
+            tempEditImages = images;
+            Toast.makeText(this, "New image selected", Toast.LENGTH_SHORT).show();
 
-            outputStream.flush();
-            outputStream.close();
-            inputStream.close();
-
-            return file.getAbsolutePath();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+            // Update the ImageView directly instead of recreating dialog
+            if (currentEditImageView != null) {
+                Glide.with(this)
+                        .load(new File(images.detailImagePath))
+                        .placeholder(android.R.drawable.ic_menu_gallery)
+                        .error(android.R.drawable.ic_menu_gallery)
+                        .into(currentEditImageView);
+                currentEditImageView.setVisibility(View.VISIBLE);
+            }
+        });
     }
 
     private void initViews() {
@@ -150,17 +143,38 @@ public class ViewProductActivity extends AppCompatActivity {
 
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         productList = new ArrayList<>();
-        adapter = new ProductAdapter(productList);
+        adapter = new ProductAdapter();
         recyclerView.setAdapter(adapter);
+
+        pageLoader = new ProductPageLoader(repository, this::showProductsPage);
+        pageLoader.attachTo(recyclerView);
+
+        // Decode the next rows' thumbnails before they scroll into view
+        recyclerView.addOnScrollListener(
+                ProductImagePreloader.create(glide, adapter, preloadSizes));
     }
 
     private void loadProducts() {
-        productList.clear();
-        productList.addAll(databaseHelper.getAllProducts());
-        adapter.notifyDataSetChanged();
+        pageLoader.reload();
+        repository.getProductCount(this::showProductCount);
+    }
+
+    private void showProductsPage(List<Product> page, boolean firstPage) {
+        if (firstPage) {
+            productList.clear();
+        }
+        productList.addAll(page);
+        // A copy: ListAdapter diffs the next list against the one it holds,
+        // in the background, and rebinds only the rows that changed
+        adapter.submitList(new ArrayList<>(productList));
+    }
 
+    private void showProductCount(Integer count) {
+        if (count == null) {
+            return; // failed; keep what is shown
+        }
         // Show/hide views based on product count
-        if (productList.isEmpty()) {
+        if (count == 0) {
             tvNoProducts.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
             if (cvProductCount != null) {
@@ -173,36 +187,49 @@ public class ViewProductActivity extends AppCompatActivity {
             // Show product count card
             if (cvProductCount != null && tvProductCount != null) {
                 cvProductCount.setVisibility(View.VISIBLE);
-                tvProductCount.setText(String.valueOf(productList.size()));
+                tvProductCount.setText(String.valueOf(count));
             }
         }
     }
 
     // RecyclerView Adapter
-    private class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
+    private class ProductAdapter extends ListAdapter<Product, ProductAdapter.ProductViewHolder> {
 
-        private List<Product> products;
+        public ProductAdapter() {
+            super(new ProductDiffCallback());
+            setHasStableIds(true);
+        }
 
-        public ProductAdapter(List<Product> products) {
-            this.products = products;
+        @Override
+        public long getItemId(int position) {
+            return getItem(position).getId();
         }
 
         @Override
         public ProductViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
             View view = LayoutInflater.from(parent.getContext())
                     .inflate(R.layout.item_product, parent, false);
-            return new ProductViewHolder(view);
+            ProductViewHolder holder = new ProductViewHolder(view);
+            // Preloads are decoded at the size rows are drawn at
+            preloadSizes.setView(holder.ivProductImage);
+            return holder;
         }
 
         @Override
         public void onBindViewHolder(ProductViewHolder holder, int position) {
-            Product product = products.get(position);
+            Product product = getItem(position);
             holder.bind(product);
         }
 
         @Override
-        public int getItemCount() {
-            return products.size();
+        public void onBindViewHolder(@NonNull ProductViewHolder holder, int position,
+                                     @NonNull List<Object> payloads) {
+            if (payloads.isEmpty() || !payloads.contains(ProductDiffCallback.PAYLOAD_TEXT)) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+            // Same image: leave it alone rather than asking Glide again
+            holder.bindText(getItem(position));
         }
 
         class ProductViewHolder extends RecyclerView.ViewHolder {
@@ -210,6 +237,7 @@ public class ViewProductActivity extends AppCompatActivity {
             TextView tvProductName, tvProductDescription, tvProductPrice;
             ImageView ivProductImage;
             Button btnEdit, btnDelete;
+            Product product;
 
             public ProductViewHolder(View itemView) {
                 super(itemView);
@@ -219,32 +247,6 @@ public class ViewProductActivity extends AppCompatActivity {
                 ivProductImage = itemView.findViewById(R.id.ivProductImage);
                 btnEdit = itemView.findViewById(R.id.btnEdit);
                 btnDelete = itemView.findViewById(R.id.btnDelete);
-            }
-
-            public void bind(final Product product) {
-                tvProductName.setText(product.getName());
-                tvProductDescription.setText(product.getDescription());
-                tvProductPrice.setText("৳ " + String.format("%.2f", product.getPrice()));
-
-                // Load image from file path
-                if (product.getImage() != null && !product.getImage().isEmpty()) {
-                    File imageFile = new File(product.getImage());
-
-                    if (imageFile.exists()) {
-                        Glide.with(itemView.getContext())
-                                .load(imageFile)
-                                .placeholder(android.R.drawable.ic_menu_gallery)
-                                .error(android.R.drawable.ic_menu_gallery)
-                                .into(ivProductImage);
-                    } else {
-                        ivProductImage.setImageResource(android.R.drawable.ic_menu_gallery);
-                    }
-
-                    ivProductImage.setVisibility(View.VISIBLE);
-                } else {
-                    ivProductImage.setImageResource(android.R.drawable.ic_menu_gallery);
-                    ivProductImage.setVisibility(View.VISIBLE);
-                }
 
                 btnEdit.setOnClickListener(new View.OnClickListener() {
                     @Override
@@ -260,6 +262,30 @@ public class ViewProductActivity extends AppCompatActivity {
                     }
                 });
             }
+
+            public void bind(final Product product) {
+                bindText(product);
+
+                // List-size thumbnail when there is one. Whether the file is
+                // still there was checked in the background; no disk access here
+                if (product.hasLoadableImage()) {
+                    ProductImagePreloader.listImageRequest(glide, new File(product.getListImage()))
+                            .error(android.R.drawable.ic_menu_gallery)
+                            .into(ivProductImage);
+                    ivProductImage.setVisibility(View.VISIBLE);
+                } else {
+                    glide.clear(ivProductImage);
+                    ivProductImage.setImageResource(android.R.drawable.ic_menu_gallery);
+                    ivProductImage.setVisibility(View.VISIBLE);
+                }
+            }
+
+            public void bindText(final Product product) {
+                this.product = product;
+                tvProductName.setText(product.getName());
+                tvProductDescription.setText(product.getDescription());
+                tvProductPrice.setText("৳ " + String.format("%.2f", product.getPrice()));
+            }
         }
     }
 
@@ -267,8 +293,9 @@ public class ViewProductActivity extends AppCompatActivity {
     private void showEditDialog(final Product product) {
         editingProduct = product;
 
-        // Initialize temp path with current image
-        tempEditImagePath = product.getImage() != null ? product.getImage() : "";
+        // Keep the current image unless a new one is picked
+        tempEditImages = null;
+        String currentImage = product.getDetailImage();
 
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_edit_product, null);
@@ -289,8 +316,8 @@ public class ViewProductActivity extends AppCompatActivity {
         etPrice.setText(String.valueOf(product.getPrice()));
 
         // Load current image
-        if (tempEditImagePath != null && !tempEditImagePath.isEmpty()) {
-            File imageFile = new File(tempEditImagePath);
+        if (currentImage != null && !currentImage.isEmpty()) {
+            File imageFile = new File(currentImage);
             if (imageFile.exists()) {
                 Glide.with(this)
                         .load(imageFile)
@@ -338,22 +365,30 @@ public class ViewProductActivity extends AppCompatActivity {
                     return;
                 }
 
-                product.setName(name);
-                product.setDescription(description);
-                product.setPrice(price);
-                product.setImage(tempEditImagePath);
-
-                boolean success = databaseHelper.updateProduct(product);
-                if (success) {
-                    Toast.makeText(ViewProductActivity.this, "Product updated", Toast.LENGTH_SHORT).show();
-                    loadProducts();
-                } else {
-                    Toast.makeText(ViewProductActivity.this, "Update failed", Toast.LENGTH_SHORT).show();
+                // Edit a copy: the row on screen must keep its old values
+                // until the reload, or the diff would find nothing to rebind
+                Product updated = new Product(name, description, price, product.getImage());
+                updated.setId(product.getId());
+                updated.copyImageFrom(product);
+                if (tempEditImages != null) {
+                    tempEditImages.applyTo(updated);
                 }
 
+                repository.updateProduct(updated, success -> {
+                    if (Boolean.TRUE.equals(success)) {
+                        Toast.makeText(ViewProductActivity.this, "Product updated", Toast.LENGTH_SHORT).show();
+                        if (!TextUtils.equals(updated.getImage(), product.getImage())) {
+                            collectImageGarbage();
+                        }
+                        loadProducts();
+                    } else {
+                        Toast.makeText(ViewProductActivity.this, "Update failed", Toast.LENGTH_SHORT).show();
+                    }
+                });
+
                 // Clear references
                 editingProduct = null;
-                tempEditImagePath = "";
+                tempEditImages = null;
                 currentEditImageView = null;
             }
         });
@@ -364,7 +399,7 @@ public class ViewProductActivity extends AppCompatActivity {
                 dialog.dismiss();
                 // Clear references
                 editingProduct = null;
-                tempEditImagePath = "";
+                tempEditImages = null;
                 currentEditImageView = null;
             }
         });
@@ -389,21 +424,17 @@ public class ViewProductActivity extends AppCompatActivity {
         builder.setPositiveButton("Delete", new DialogInterface.OnClickListener() {
             @Override
             public void onClick(DialogInterface dialog, int which) {
-                // Delete image file if exists
-                if (product.getImage() != null && !product.getImage().isEmpty()) {
-                    File imageFile = new File(product.getImage());
-                    if (imageFile.exists()) {
-                        imageFile.delete();
+                // Image files may be shared with other products; the image
+                // store collects them once nothing refers to them
+                repository.deleteProduct(product.getId(), success -> {
+                    if (Boolean.TRUE.equals(success)) {
+                        Toast.makeText(ViewProductActivity.this, "Product deleted", Toast.LENGTH_SHORT).show();
+                        collectImageGarbage();
+                        loadProducts();
+                    } else {
+                        Toast.makeText(ViewProductActivity.this, "Delete failed", Toast.LENGTH_SHORT).show();
                     }
-                }
-
-                boolean success = databaseHelper.deleteProduct(product.getId());
-                if (success) {
-                    Toast.makeText(ViewProductActivity.this, "Product deleted", Toast.LENGTH_SHORT).show();
-                    loadProducts();
-                } else {
-                    Toast.makeText(ViewProductActivity.this, "Delete failed", Toast.LENGTH_SHORT).show();
-                }
+                });
             }
         });
 
@@ -417,9 +448,23 @@ public class ViewProductActivity extends AppCompatActivity {
         builder.create().show();
     }
 
+    // Reclaims the files of images that were just replaced or deleted
+    private void collectImageGarbage() {
+        repository.collectImageGarbage(ProductImageStore.getInstance(this), null);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
-        loadProducts();
+        // Skip the reload when the catalog did not change while we were away
+        if (pageLoader.reloadIfChanged()) {
+            repository.getProductCount(this::showProductCount);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
     }
 }
\ No newline at end of file
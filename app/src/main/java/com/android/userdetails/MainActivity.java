@@ -3,7 +3,6 @@ package com.android.userdetails;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.os.Handler;
 
 import androidx.appcompat.app.AppCompatActivity;
 
@@ -18,8 +17,8 @@ public class MainActivity extends AppCompatActivity {
     private static final String KEY_IS_LOGGED_IN = "isLoggedIn";
     private static final String KEY_EMAIL = "email";
 
-    // Splash Screen Duration (1 second)
-    private static final int SPLASH_DURATION = 1000;
+    // Loads the first screen's data; the splash stays up until it is done
+    private StartupWarmup warmup;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -29,13 +28,19 @@ public class MainActivity extends AppCompatActivity {
         // Initialize SharedPreferences
         sharedPreferences = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
 
-        // Check Login Status and Navigate
-        new Handler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                checkLoginAndNavigate();
-            }
-        }, SPLASH_DURATION);
+        StartupTrace.beginColdStart();
+
+        // Navigate as soon as the next screen has what it needs
+        boolean isLoggedIn = sharedPreferences.getBoolean(KEY_IS_LOGGED_IN, false);
+        warmup = new StartupWarmup(this);
+        warmup.start(!isLoggedIn, this::checkLoginAndNavigate);
+    }
+
+    @Override
+    protected void onDestroy() {
+        // Left before the warm-up finished, e.g. with the back button
+        warmup.cancel();
+        super.onDestroy();
     }
 
     private void checkLoginAndNavigate() {
@@ -49,9 +54,11 @@ public class MainActivity extends AppCompatActivity {
             String email = sharedPreferences.getString(KEY_EMAIL, "");
             intent = new Intent(MainActivity.this, DashboardActivity.class);
             intent.putExtra("email", email);
+            StartupTrace.end("splash ready");
         } else {
             // User is not logged in - Go to Guest Shopping
             intent = new Intent(MainActivity.this, GuestShoppingActivity.class);
+            StartupTrace.mark("splash ready");
         }
 
         startActivity(intent);
@@ -0,0 +1,72 @@
+package com.android.userdetails;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Logs how long a cold start takes, measured from the moment the process was
+ * forked. Milestones are logged under the "Startup" tag, e.g.
+ *
+ * <pre>
+ * Startup: splash ready: +412 ms
+ * Startup: first product frame: +538 ms
+ * </pre>
+ *
+ * Only a launch that went through the splash screen is reported; a process
+ * restored straight into another screen logs nothing.
+ */
+public final class StartupTrace {
+
+    private static final String TAG = "Startup";
+
+    private static boolean launched = false;
+    private static boolean coldStart = false;
+    private static boolean firstFrameReported = false;
+
+    private StartupTrace() {
+    }
+
+    // Called by the splash screen; only its first launch in a process counts
+    static void beginColdStart() {
+        if (!launched) {
+            launched = true;
+            coldStart = true;
+        }
+    }
+
+    static void mark(String milestone) {
+        if (coldStart) {
+            Log.i(TAG, milestone + ": +" + sinceProcessStart() + " ms");
+        }
+    }
+
+    // Logs the last milestone; later ones are not part of this start
+    static void end(String milestone) {
+        mark(milestone);
+        coldStart = false;
+    }
+
+    // Logs once, after the first frame showing products has been drawn
+    public static void onFirstProductsBound(View list) {
+        if (!coldStart || firstFrameReported) {
+            return;
+        }
+        firstFrameReported = true;
+        list.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                list.getViewTreeObserver().removeOnPreDrawListener(this);
+                // Runs after this traversal has drawn the frame
+                list.post(() -> end("first product frame"));
+                return true;
+            }
+        });
+    }
+
+    private static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+    }
+}
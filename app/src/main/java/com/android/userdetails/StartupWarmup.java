@@ -0,0 +1,151 @@
+package com.android.userdetails;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.userdetails.db.DataRepository;
+import com.android.userdetails.db.DatabaseHelper;
+import com.android.userdetails.model.Product;
+import com.android.userdetails.ui.ProductImagePreloader;
+import com.android.userdetails.ui.ProductPageLoader;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Does the first screen's loading while the splash screen is up, so the
+ * splash stays exactly as long as that work takes.
+ *
+ * For a guest launch the product count and the first catalog page are read
+ * in parallel (the database is already opening, see UserDetailsApp), which
+ * leaves both in the catalog cache for GuestShoppingActivity. Then the
+ * thumbnails of the rows that fit on the first screen are decoded into
+ * Glide's memory cache at the size the list draws them. A logged-in launch
+ * only waits for the database.
+ *
+ * Whatever happens, the listener is called within MAX_WAIT_MS: the next
+ * screen can always load anything that was not warmed up itself.
+ */
+class StartupWarmup {
+
+    private static final long MAX_WAIT_MS = 2000;
+
+    interface Listener {
+        void onWarmedUp();
+    }
+
+    private final Context context;
+    private final DataRepository repository;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable timeout = this::finish;
+
+    private Listener listener;
+    private int pendingSteps = 0;
+
+    StartupWarmup(Context context) {
+        this.context = context.getApplicationContext();
+        this.repository = new DataRepository(DatabaseHelper.getInstance(context));
+    }
+
+    void start(boolean guest, Listener listener) {
+        this.listener = listener;
+        handler.postDelayed(timeout, MAX_WAIT_MS);
+
+        // Answered once the database is open; the same count the list shows
+        pendingSteps++;
+        repository.getProductCount(count -> stepDone());
+
+        if (guest) {
+            pendingSteps++;
+            repository.getProductsPage(0, ProductPageLoader.PAGE_SIZE, page -> {
+                StartupTrace.mark("first page loaded");
+                if (page != null) {
+                    preloadThumbnails(page);
+                }
+                stepDone();
+            });
+        }
+    }
+
+    // Stops waiting; the queued reads are dropped and the listener is not called
+    void cancel() {
+        listener = null;
+        handler.removeCallbacks(timeout);
+        repository.cancelAll();
+    }
+
+    private void preloadThumbnails(List<Product> page) {
+        Resources res = context.getResources();
+        int rowHeight = res.getDimensionPixelSize(R.dimen.product_image_height);
+        int width = res.getDisplayMetrics().widthPixels
+                - 2 * res.getDimensionPixelSize(R.dimen.product_list_padding)
+                - 2 * res.getDimensionPixelSize(R.dimen.product_card_margin);
+        // A row is taller than its image, so this is at least a screenful
+        int rows = res.getDisplayMetrics().heightPixels / rowHeight + 1;
+
+        List<File> files = new ArrayList<>();
+        for (Product product : page) {
+            if (files.size() == rows) {
+                break;
+            }
+            if (product.hasLoadableImage()) {
+                files.add(new File(product.getListImage()));
+            }
+        }
+
+        // Same request shape as the rows, so they find these in the memory cache
+        RequestManager glide = Glide.with(context);
+        for (File file : files) {
+            pendingSteps++;
+            ProductImagePreloader.listImageRequest(glide, file)
+                    .addListener(new RequestListener<Drawable>() {
+                        @Override
+                        public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                                    @NonNull Target<Drawable> target,
+                                                    boolean isFirstResource) {
+                            stepDone();
+                            return false;
+                        }
+
+                        @Override
+                        public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model,
+                                                       Target<Drawable> target,
+                                                       @NonNull DataSource dataSource,
+                                                       boolean isFirstResource) {
+                            stepDone();
+                            return false;
+                        }
+                    })
+                    .preload(width, rowHeight);
+        }
+    }
+
+    private void stepDone() {
+        pendingSteps--;
+        if (pendingSteps == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        handler.removeCallbacks(timeout);
+        Listener done = listener;
+        listener = null;
+        if (done != null) {
+            done.onWarmedUp();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.android.userdetails;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.userdetails.db.CartStore;
+import com.android.userdetails.db.DataRepository;
+import com.android.userdetails.db.DatabaseHelper;
+import com.android.userdetails.image.ProductImageStore;
+
+public class UserDetailsApp extends Application {
+
+    private static final long HOUSEKEEPING_DELAY_MS = 5000;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Open (and if needed upgrade) the database while the splash screen
+        // is up, so the first screen's query does not pay for it
+        DataRepository.openInBackground(DatabaseHelper.getInstance(this));
+        // Starts reading the saved cart, so the badge is ready with the first screen
+        CartStore.getInstance(this);
+        // Catch up on image files orphaned while the app was not running, and
+        // on referenced ones that went missing. Deferred so the splash
+        // screen's warm-up has the worker pool to itself.
+        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+            DataRepository repository = new DataRepository(DatabaseHelper.getInstance(this));
+            repository.collectImageGarbage(ProductImageStore.getInstance(this), null);
+            repository.verifyImageMetadata(null);
+        }, HOUSEKEEPING_DELAY_MS);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            // Next in line to be killed: give back the connections entirely.
+            // The helper reopens on the next query.
+            DataRepository.closeIfIdle(DatabaseHelper.getInstance(this));
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // Drop SQLite page caches but keep the connections
+            SQLiteDatabase.releaseMemory();
+        }
+    }
+}
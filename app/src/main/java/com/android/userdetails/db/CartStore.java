@@ -0,0 +1,304 @@
+package com.android.userdetails.db;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.android.userdetails.model.CartItem;
+import com.android.userdetails.model.Product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shopping cart, kept in memory and persisted to the cart_items table.
+ *
+ * Lines are indexed by product id in insertion order, so membership and
+ * quantity changes are O(1), and the total and unit count are adjusted on
+ * every change instead of being summed again.
+ *
+ * Changes mark their product dirty and are written in one background
+ * transaction FLUSH_DELAY_MS after the first one, so a burst of taps costs a
+ * single write. Only one flush is in flight at a time, which keeps writes in
+ * order. Call {@link #flush()} when the screen is left to write immediately.
+ *
+ * Main thread only. The saved cart is read in the background on first use;
+ * changes made before it arrives are applied right after it is loaded.
+ */
+public class CartStore {
+
+    private static final String TAG = "CartStore";
+    private static final long FLUSH_DELAY_MS = 500;
+
+    public interface Listener {
+        void onCartChanged();
+    }
+
+    private static CartStore instance;
+
+    private final DatabaseHelper databaseHelper;
+    private final DataRepository repository;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final LinkedHashMap<Integer, CartItem> items = new LinkedHashMap<>();
+    // Product id -> line to save, or null when the line was removed
+    private final Map<Integer, CartItem> dirty = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final List<Runnable> beforeLoad = new ArrayList<>();
+
+    private double total = 0;
+    private int unitCount = 0;
+    private boolean loaded = false;
+    private boolean flushScheduled = false;
+    private boolean flushing = false;
+
+    private final Runnable flushRunnable = this::flush;
+
+    public static CartStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new CartStore(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private CartStore(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+        // Never cancelled: the store lives as long as the process
+        repository = new DataRepository(databaseHelper);
+        repository.query(() -> {
+            try {
+                return databaseHelper.getCartItems();
+            } catch (Exception e) {
+                // Start with an empty cart rather than blocking every change
+                Log.e(TAG, "Could not read the saved cart", e);
+                return new ArrayList<CartItem>();
+            }
+        }, this::onLoaded);
+    }
+
+    private void onLoaded(List<CartItem> saved) {
+        for (CartItem item : saved) {
+            items.put(item.getProductId(), item);
+            total += item.getLineTotal();
+            unitCount += item.getQuantity();
+        }
+        loaded = true;
+        for (Runnable change : beforeLoad) {
+            change.run();
+        }
+        beforeLoad.clear();
+        notifyChanged();
+    }
+
+    // ==================== READS ====================
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean contains(int productId) {
+        return items.containsKey(productId);
+    }
+
+    public int getQuantity(int productId) {
+        CartItem item = items.get(productId);
+        return item != null ? item.getQuantity() : 0;
+    }
+
+    // A snapshot of the lines, in the order they were added
+    public List<CartItem> getItems() {
+        return new ArrayList<>(items.values());
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    // Number of units, counting quantities
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    // ==================== CHANGES ====================
+
+    // Adds one unit of the product; returns the new quantity
+    public int add(Product product) {
+        if (!loaded) {
+            beforeLoad.add(() -> add(product));
+            return getQuantity(product.getId()) + 1;
+        }
+        CartItem item = items.get(product.getId());
+        if (item == null) {
+            item = new CartItem(product, 0, System.currentTimeMillis());
+            items.put(product.getId(), item);
+        }
+        changeQuantity(item, item.getQuantity() + 1);
+        return item.getQuantity();
+    }
+
+    // Sets the quantity of a line already in the cart; 0 or less removes it
+    public void setQuantity(int productId, int quantity) {
+        if (!loaded) {
+            beforeLoad.add(() -> setQuantity(productId, quantity));
+            return;
+        }
+        CartItem item = items.get(productId);
+        if (item == null) {
+            return;
+        }
+        if (quantity <= 0) {
+            remove(productId);
+        } else {
+            changeQuantity(item, quantity);
+        }
+    }
+
+    public void remove(int productId) {
+        if (!loaded) {
+            beforeLoad.add(() -> remove(productId));
+            return;
+        }
+        CartItem item = items.remove(productId);
+        if (item == null) {
+            return;
+        }
+        total -= item.getLineTotal();
+        unitCount -= item.getQuantity();
+        settleTotals();
+        markDirty(productId, null);
+    }
+
+    public void clear() {
+        if (!loaded) {
+            beforeLoad.add(this::clear);
+            return;
+        }
+        for (Integer productId : items.keySet()) {
+            dirty.put(productId, null);
+        }
+        items.clear();
+        total = 0;
+        unitCount = 0;
+        scheduleFlush();
+        notifyChanged();
+    }
+
+    private void changeQuantity(CartItem item, int quantity) {
+        int delta = quantity - item.getQuantity();
+        item.setQuantity(quantity);
+        total += delta * item.getUnitPrice();
+        unitCount += delta;
+        markDirty(item.getProductId(), item);
+    }
+
+    // Adding and removing prices leaves rounding dust behind; an empty cart is exactly zero
+    private void settleTotals() {
+        if (items.isEmpty()) {
+            total = 0;
+            unitCount = 0;
+        }
+    }
+
+    private void markDirty(int productId, CartItem item) {
+        dirty.put(productId, item);
+        scheduleFlush();
+        notifyChanged();
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+    }
+
+    // Writes pending changes now
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        if (flushing || dirty.isEmpty()) {
+            // A flush in flight picks the rest up when it finishes
+            return;
+        }
+
+        // Copy the lines: the cart may keep changing while the write runs
+        List<CartItem> changed = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        for (Map.Entry<Integer, CartItem> entry : dirty.entrySet()) {
+            CartItem item = entry.getValue();
+            if (item == null) {
+                removed.add(entry.getKey());
+            } else {
+                changed.add(copyOf(item));
+            }
+        }
+        dirty.clear();
+
+        flushing = true;
+        repository.write(() -> {
+            try {
+                databaseHelper.saveCartChanges(changed, removed);
+                return true;
+            } catch (Exception e) {
+                Log.e(TAG, "Could not save the cart", e);
+                return false;
+            }
+        }, saved -> {
+            flushing = false;
+            if (!saved) {
+                // Retry with whatever state those lines have now, unless
+                // they changed again and are already waiting
+                for (CartItem item : changed) {
+                    if (!dirty.containsKey(item.getProductId())) {
+                        dirty.put(item.getProductId(), items.get(item.getProductId()));
+                    }
+                }
+                for (Integer productId : removed) {
+                    if (!dirty.containsKey(productId)) {
+                        dirty.put(productId, items.get(productId));
+                    }
+                }
+            }
+            if (!dirty.isEmpty()) {
+                scheduleFlush();
+            }
+        });
+    }
+
+    private static CartItem copyOf(CartItem item) {
+        CartItem copy = new CartItem();
+        copy.setProductId(item.getProductId());
+        copy.setName(item.getName());
+        copy.setUnitPrice(item.getUnitPrice());
+        copy.setImagePath(item.getImagePath());
+        copy.setQuantity(item.getQuantity());
+        copy.setAddedAt(item.getAddedAt());
+        return copy;
+    }
+
+    // ==================== LISTENERS ====================
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyChanged() {
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onCartChanged();
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.android.userdetails.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.image.ImageIngester;
+import com.android.userdetails.image.ProductImageStore;
+import com.android.userdetails.model.DailySales;
+import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.Product;
+import com.android.userdetails.model.ProductSales;
+import com.android.userdetails.model.User;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Runs DatabaseHelper calls on a small shared background pool and hands the
+ * results back on the main thread.
+ *
+ * Each Activity owns one repository and calls {@link #cancelAll()} from
+ * onDestroy. Queued reads are cancelled; writes that already started are
+ * allowed to finish, but their callbacks are never delivered.
+ */
+public class DataRepository {
+
+    private static final String TAG = "DataRepository";
+
+    // Two threads are enough to overlap a list load with a point lookup;
+    // more only contend on the SQLite connection pool.
+    private static final int POOL_SIZE = 2;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    // Every task holds the read side while it touches the database, so a
+    // low-memory close never pulls the connection out from under a query
+    private static final ReentrantReadWriteLock DATABASE_LOCK = new ReentrantReadWriteLock();
+
+    // At most one synthetic data load, app-wide; see startSyntheticLoad
+    private static final AtomicBoolean SYNTHETIC_LOAD_RUNNING = new AtomicBoolean(false);
+    private static final MutableLiveData<SyntheticDataLoader.Status> SYNTHETIC_LOAD_STATUS =
+            new MutableLiveData<>();
+
+    // result is null if the work threw, so the caller always hears back
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private final DatabaseHelper databaseHelper;
+    private final Set<Future<?>> pending =
+            Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean cancelled = false;
+
+    public DataRepository(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    private static ExecutorService createExecutor() {
+        ThreadFactory factory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "db-worker-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                POOL_SIZE, POOL_SIZE,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    // Opens the database (running any upgrade) on the worker pool
+    public static void openInBackground(DatabaseHelper databaseHelper) {
+        runInBackground(() -> {
+            try {
+                databaseHelper.getWritableDatabase();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to open database", e);
+            }
+        });
+    }
+
+    // Runs work on the worker pool outside any screen's lifecycle
+    static void runInBackground(Runnable work) {
+        EXECUTOR.execute(() -> {
+            DATABASE_LOCK.readLock().lock();
+            try {
+                work.run();
+            } finally {
+                DATABASE_LOCK.readLock().unlock();
+            }
+        });
+    }
+
+    // Closes the database unless a task is using it right now. The helper
+    // reopens lazily on the next query. Returns whether it was closed.
+    public static boolean closeIfIdle(DatabaseHelper databaseHelper) {
+        if (!DATABASE_LOCK.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            databaseHelper.checkpointWal();
+            databaseHelper.close();
+            return true;
+        } finally {
+            DATABASE_LOCK.writeLock().unlock();
+        }
+    }
+
+    // ==================== TEST DATA ====================
+
+    // Fills the database with a generated dataset for load testing (debug
+    // builds only, see SyntheticDataLoader). Takes minutes at full size, so it
+    // runs on its own thread instead of the worker pool and belongs to no
+    // screen: closing or recreating one neither stops it nor loses its
+    // result. Only one load runs at a time; returns false if one already is.
+    // Call on the main thread.
+    public static boolean startSyntheticLoad(DatabaseHelper databaseHelper, SyntheticDataset dataset,
+                                             ImageIngester ingester) {
+        if (!SYNTHETIC_LOAD_RUNNING.compareAndSet(false, true)) {
+            return false;
+        }
+        SYNTHETIC_LOAD_STATUS.setValue(SyntheticDataLoader.Status.progress(null, 0, 0));
+
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            SyntheticDataLoader.Result result = null;
+            DATABASE_LOCK.readLock().lock();
+            try {
+                List<ImageIngester.ProductImages> stubs =
+                        ingester.ingestStubImages(dataset.getSpec().getImageStubCount());
+                result = new SyntheticDataLoader(databaseHelper, SyntheticDataLoader.DEFAULT_BATCH_SIZE,
+                        (table, written, total) -> SYNTHETIC_LOAD_STATUS.postValue(
+                                SyntheticDataLoader.Status.progress(table, written, total)))
+                        .load(dataset, stubs);
+                Log.i(TAG, "Loaded synthetic data: " + result);
+            } catch (Exception e) {
+                Log.e(TAG, "Synthetic data load failed", e);
+            } finally {
+                DATABASE_LOCK.readLock().unlock();
+            }
+            SyntheticDataLoader.Status finished = SyntheticDataLoader.Status.finished(result);
+            // Clear the flag together with the final status, so a screen that
+            // shows the load as finished can start the next one
+            MAIN_HANDLER.post(() -> {
+                SYNTHETIC_LOAD_STATUS.setValue(finished);
+                SYNTHETIC_LOAD_RUNNING.set(false);
+            });
+        }, "synthetic-load");
+        thread.start();
+        return true;
+    }
+
+    // The current or last synthetic load; null until one has been started
+    public static LiveData<SyntheticDataLoader.Status> observeSyntheticLoad() {
+        return SYNTHETIC_LOAD_STATUS;
+    }
+
+    // ==================== USER METHODS ====================
+
+    public Future<?> checkUser(String email, String password, Callback<Boolean> callback) {
+        return query(() -> databaseHelper.checkUser(email, password), callback);
+    }
+
+    public Future<?> checkEmail(String email, Callback<Boolean> callback) {
+        return query(() -> databaseHelper.checkEmail(email), callback);
+    }
+
+    public Future<?> getUserByEmail(String email, Callback<User> callback) {
+        return query(() -> databaseHelper.getUserByEmail(email), callback);
+    }
+
+    public Future<?> registerUser(User user, Callback<Boolean> callback) {
+        return write(() -> databaseHelper.registerUser(user), callback);
+    }
+
+    public Future<?> updateProfile(String email, String name, String phone, String gender,
+                                   String address, String dob, Callback<Boolean> callback) {
+        return write(() -> {
+            boolean basicUpdated = databaseHelper.updateBasicInfo(email, name, phone, gender);
+            boolean profileUpdated = databaseHelper.updateUserProfile(email, address, dob, null, null, null);
+            return basicUpdated || profileUpdated;
+        }, callback);
+    }
+
+    // ==================== PRODUCT METHODS ====================
+
+    public Future<?> getAllProducts(Callback<List<Product>> callback) {
+        return query(databaseHelper::getAllProducts, callback);
+    }
+
+    public Future<?> getProductsPage(int afterId, int limit, Callback<List<Product>> callback) {
+        return query(() -> databaseHelper.getProductsPage(afterId, limit), callback);
+    }
+
+    // Changes whenever the catalog does; cheap enough to read on the main thread
+    public long getCatalogVersion() {
+        return databaseHelper.getCatalogCache().getVersion();
+    }
+
+    public Future<?> getProductCount(Callback<Integer> callback) {
+        return query(databaseHelper::getProductCount, callback);
+    }
+
+    public Future<?> searchProducts(String searchText, int limit, Callback<List<Product>> callback) {
+        return query(() -> databaseHelper.searchProducts(searchText, limit), callback);
+    }
+
+    public Future<?> addProduct(Product product, Callback<Boolean> callback) {
+        return write(() -> databaseHelper.addProduct(product), callback);
+    }
+
+    // Progress is reported on the main thread after every committed batch
+    public Future<?> bulkInsertProducts(Iterator<Product> products, int batchSize,
+                                        ProductBulkInserter.ProgressListener listener,
+                                        Callback<Integer> callback) {
+        ProductBulkInserter.ProgressListener mainThreadListener = listener == null ? null
+                : (inserted, rowsPerSecond) -> MAIN_HANDLER.post(() -> {
+                    if (!cancelled) {
+                        listener.onProgress(inserted, rowsPerSecond);
+                    }
+                });
+        return write(() -> databaseHelper.bulkInsertProducts(products, batchSize, mainThreadListener), callback);
+    }
+
+    // Streams an XML catalog feed into the products table. The callback gets
+    // the number of products added, or -1 if the feed could not be read;
+    // batches committed before a failure are kept and resumed next time.
+    public Future<?> importProductsXml(Callable<InputStream> source, String sourceKey,
+                                       ProductBulkInserter.ProgressListener listener,
+                                       Callback<Integer> callback) {
+        ProductBulkInserter.ProgressListener mainThreadListener = listener == null ? null
+                : (inserted, rowsPerSecond) -> MAIN_HANDLER.post(() -> {
+                    if (!cancelled) {
+                        listener.onProgress(inserted, rowsPerSecond);
+                    }
+                });
+        return write(() -> {
+            try (InputStream in = source.call()) {
+                return databaseHelper.importProductsXml(in, sourceKey,
+                        ProductBulkInserter.DEFAULT_BATCH_SIZE, mainThreadListener);
+            } catch (Exception e) {
+                Log.e(TAG, "Catalog import failed: " + sourceKey, e);
+                return -1;
+            }
+        }, callback);
+    }
+
+    public Future<?> updateProduct(Product product, Callback<Boolean> callback) {
+        return write(() -> databaseHelper.updateProduct(product), callback);
+    }
+
+    public Future<?> deleteProduct(int id, Callback<Boolean> callback) {
+        return write(() -> databaseHelper.deleteProduct(id), callback);
+    }
+
+    // Deletes image files no product or cart line uses any more. Run after
+    // deletes and image changes; never cancelled, like a write.
+    public Future<?> collectImageGarbage(ProductImageStore store,
+                                         Callback<ProductImageStore.GcResult> callback) {
+        return write(() -> {
+            ProductImageStore.GcResult result =
+                    store.collectGarbage(databaseHelper.getReferencedImagePaths());
+            if (result.filesDeleted > 0) {
+                Log.i(TAG, "Image GC reclaimed " + result);
+            }
+            return result;
+        }, callback);
+    }
+
+    // Brings the recorded image availability and sizes in line with the disk;
+    // hands back the number of products corrected
+    public Future<?> verifyImageMetadata(Callback<Integer> callback) {
+        return write(() -> {
+            int corrected = new ImageMetadataVerifier(databaseHelper).verifyAll();
+            if (corrected > 0) {
+                Log.i(TAG, "Corrected image metadata of " + corrected + " products");
+            }
+            return corrected;
+        }, callback);
+    }
+
+    // ==================== ORDER METHODS ====================
+
+    public Future<?> getAllOrders(Callback<List<Order>> callback) {
+        return query(databaseHelper::getAllOrders, callback);
+    }
+
+    public Future<?> getOrdersBetween(long fromMillis, long toMillis, int limit,
+                                      Callback<List<Order>> callback) {
+        return query(() -> databaseHelper.getOrdersBetween(fromMillis, toMillis, limit), callback);
+    }
+
+    public Future<?> addOrder(String phone, String address, List<OrderItem> items, double total,
+                              Callback<Long> callback) {
+        return write(() -> databaseHelper.addOrder(phone, address, items, total), callback);
+    }
+
+    public Future<?> getOrderItems(int orderId, Callback<List<OrderItem>> callback) {
+        return query(() -> databaseHelper.getOrderItems(orderId), callback);
+    }
+
+    public Future<?> getProductSales(int limit, Callback<List<ProductSales>> callback) {
+        return query(() -> databaseHelper.getProductSales(limit), callback);
+    }
+
+    // Sales chart data for [fromMillis, toMillis), read from the rollup tables
+    public Future<?> getDailySales(long fromMillis, long toMillis, Callback<List<DailySales>> callback) {
+        return query(() -> databaseHelper.getDailySales(fromMillis, toMillis), callback);
+    }
+
+    public Future<?> getTopProducts(long fromMillis, long toMillis, int limit,
+                                    Callback<List<ProductSales>> callback) {
+        return query(() -> databaseHelper.getTopProducts(fromMillis, toMillis, limit), callback);
+    }
+
+    public Future<?> updateOrderStatus(int orderId, String status, Callback<Boolean> callback) {
+        return write(() -> databaseHelper.updateOrderStatus(orderId, status), callback);
+    }
+
+    public Future<?> deleteOrder(int orderId, Callback<Boolean> callback) {
+        return write(() -> databaseHelper.deleteOrder(orderId), callback);
+    }
+
+    // ==================== OBSERVABLE QUERIES ====================
+    // Re-run only after a write to the tables they read, and only while the
+    // screen observing them is visible; see LiveQuery
+
+    public LiveData<List<Product>> observeAllProducts() {
+        return new LiveQuery<>(databaseHelper.getInvalidationTracker(),
+                databaseHelper::getAllProducts, DatabaseHelper.TABLE_PRODUCTS);
+    }
+
+    public LiveData<List<Order>> observeAllOrders() {
+        return new LiveQuery<>(databaseHelper.getInvalidationTracker(),
+                databaseHelper::getAllOrders, DatabaseHelper.TABLE_ORDERS);
+    }
+
+    public LiveData<List<Order>> observePendingOrders() {
+        return new LiveQuery<>(databaseHelper.getInvalidationTracker(),
+                () -> databaseHelper.getOrdersByStatus("Pending"), DatabaseHelper.TABLE_ORDERS);
+    }
+
+    public LiveData<Integer> observePendingOrdersCount() {
+        return new LiveQuery<>(databaseHelper.getInvalidationTracker(),
+                databaseHelper::getPendingOrdersCount, DatabaseHelper.TABLE_ORDER_STATS);
+    }
+
+    // ==================== TASK PLUMBING ====================
+
+    /**
+     * Runs a read. If the owning screen goes away before the read starts, it
+     * is dropped without touching the database.
+     */
+    public <T> Future<?> query(Callable<T> work, Callback<T> callback) {
+        return submit(work, callback, true);
+    }
+
+    /**
+     * Runs a write. Writes are never cancelled once queued, so an order placed
+     * just before the screen closes still lands; only the callback is dropped.
+     */
+    public <T> Future<?> write(Callable<T> work, Callback<T> callback) {
+        return submit(work, callback, false);
+    }
+
+    private <T> Future<?> submit(Callable<T> work, Callback<T> callback, boolean cancellable) {
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            T result;
+            DATABASE_LOCK.readLock().lock();
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                // Still answer, or a screen waiting on this would wait forever
+                Log.e(TAG, "Database task failed", e);
+                result = null;
+            } finally {
+                DATABASE_LOCK.readLock().unlock();
+            }
+            deliver(result, callback);
+            return null;
+        }) {
+            @Override
+            protected void done() {
+                pending.remove(this);
+            }
+        };
+
+        if (cancelled) {
+            task.cancel(false);
+            return task;
+        }
+        if (cancellable) {
+            pending.add(task);
+        }
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    private <T> void deliver(T result, Callback<T> callback) {
+        if (callback == null || cancelled) {
+            return;
+        }
+        MAIN_HANDLER.post(() -> {
+            // Re-check on the main thread: onDestroy may have run in between
+            if (!cancelled) {
+                callback.onResult(result);
+            }
+        });
+    }
+
+    /**
+     * Cancels every queued read and suppresses all pending callbacks. Call
+     * from the owning Activity's onDestroy.
+     */
+    public void cancelAll() {
+        cancelled = true;
+        for (Future<?> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+}
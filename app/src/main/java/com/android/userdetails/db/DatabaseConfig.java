@@ -0,0 +1,61 @@
+package com.android.userdetails.db;
+
+/**
+ * Connection settings applied by DatabaseHelper.onConfigure.
+ *
+ * With write-ahead logging on, a write no longer blocks readers: the
+ * framework keeps one writer connection plus a small pool of reader
+ * connections, and each reader sees the last committed snapshot.
+ */
+public class DatabaseConfig {
+
+    // Values for PRAGMA synchronous
+    public static final String SYNCHRONOUS_OFF = "OFF";
+    public static final String SYNCHRONOUS_NORMAL = "NORMAL";
+    public static final String SYNCHRONOUS_FULL = "FULL";
+
+    private final boolean walEnabled;
+    private final String synchronous;
+    private final int walAutoCheckpointPages;
+    private final long journalSizeLimitBytes;
+
+    public DatabaseConfig(boolean walEnabled, String synchronous,
+                          int walAutoCheckpointPages, long journalSizeLimitBytes) {
+        this.walEnabled = walEnabled;
+        this.synchronous = synchronous;
+        this.walAutoCheckpointPages = walAutoCheckpointPages;
+        this.journalSizeLimitBytes = journalSizeLimitBytes;
+    }
+
+    // The framework defaults: rollback journal, nothing overridden
+    public static DatabaseConfig rollbackJournal() {
+        return new DatabaseConfig(false, null, 0, -1);
+    }
+
+    // WAL with NORMAL sync. A commit is durable once the WAL is synced at
+    // the next checkpoint, which is safe against app crashes and only loses
+    // the last transactions on power loss. The WAL is checkpointed every
+    // 1000 pages (~4 MB) and truncated back to 1 MB afterwards.
+    public static DatabaseConfig writeAheadLog() {
+        return new DatabaseConfig(true, SYNCHRONOUS_NORMAL, 1000, 1024 * 1024);
+    }
+
+    public boolean isWalEnabled() {
+        return walEnabled;
+    }
+
+    // null leaves the framework's choice in place
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    // 0 leaves SQLite's default of 1000 pages
+    public int getWalAutoCheckpointPages() {
+        return walAutoCheckpointPages;
+    }
+
+    // Negative leaves the journal unbounded
+    public long getJournalSizeLimitBytes() {
+        return journalSizeLimitBytes;
+    }
+}
@@ -3,55 +3,154 @@ package com.android.userdetails.db;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
-
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.android.userdetails.data.CatalogSchema;
+import com.android.userdetails.data.LegacyOrderItems;
+import com.android.userdetails.data.ProductSearch;
+import com.android.userdetails.model.CartItem;
+import com.android.userdetails.model.DailySales;
 import com.android.userdetails.model.User;
 import com.android.userdetails.model.Product;
 import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.ProductSales;
+
+import org.json.JSONException;
+import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
+    private static final String TAG = "DatabaseHelper";
+
     private static final String DATABASE_NAME = "UserDB";
-    private static final int DATABASE_VERSION = 4; // ✅ Version increased
+    private static final int DATABASE_VERSION = 16; // ✅ products_fts update triggers on indexed columns only
 
     // Users Table
-    private static final String TABLE_USERS = "users";
-    private static final String COLUMN_ID = "id";
-    private static final String COLUMN_NAME = "name";
-    private static final String COLUMN_EMAIL = "email";
-    private static final String COLUMN_PASSWORD = "password";
-    private static final String COLUMN_PHONE = "phone";
-    private static final String COLUMN_GENDER = "gender";
-    private static final String COLUMN_ADDRESS = "address";
-    private static final String COLUMN_DOB = "date_of_birth";
+    static final String TABLE_USERS = "users";
+    static final String COLUMN_ID = "id";
+    static final String COLUMN_NAME = "name";
+    static final String COLUMN_EMAIL = "email";
+    static final String COLUMN_PASSWORD = "password";
+    static final String COLUMN_PHONE = "phone";
+    static final String COLUMN_GENDER = "gender";
+    static final String COLUMN_ADDRESS = "address";
+    static final String COLUMN_DOB = "date_of_birth";
 
     // Products Table
-    private static final String TABLE_PRODUCTS = "products";
-    private static final String COLUMN_PRODUCT_ID = "id";
-    private static final String COLUMN_PRODUCT_NAME = "name";
-    private static final String COLUMN_PRODUCT_DESCRIPTION = "description";
-    private static final String COLUMN_PRODUCT_PRICE = "price";
-    private static final String COLUMN_PRODUCT_IMAGE = "image";
+    static final String TABLE_PRODUCTS = CatalogSchema.TABLE_PRODUCTS;
+    static final String COLUMN_PRODUCT_ID = CatalogSchema.COLUMN_PRODUCT_ID;
+    static final String COLUMN_PRODUCT_NAME = CatalogSchema.COLUMN_PRODUCT_NAME;
+    static final String COLUMN_PRODUCT_DESCRIPTION = CatalogSchema.COLUMN_PRODUCT_DESCRIPTION;
+    static final String COLUMN_PRODUCT_PRICE = CatalogSchema.COLUMN_PRODUCT_PRICE;
+    static final String COLUMN_PRODUCT_IMAGE = CatalogSchema.COLUMN_PRODUCT_IMAGE;
+    static final String COLUMN_PRODUCT_IMAGE_LIST = CatalogSchema.COLUMN_PRODUCT_IMAGE_LIST;
+    static final String COLUMN_PRODUCT_IMAGE_DETAIL = CatalogSchema.COLUMN_PRODUCT_IMAGE_DETAIL;
+    // Image metadata, recorded at ingest and kept in step with the disk by
+    // ImageMetadataVerifier. image_ok is 1 or 0, NULL until first checked.
+    static final String COLUMN_PRODUCT_IMAGE_OK = CatalogSchema.COLUMN_PRODUCT_IMAGE_OK;
+    static final String COLUMN_PRODUCT_IMAGE_WIDTH = CatalogSchema.COLUMN_PRODUCT_IMAGE_WIDTH;
+    static final String COLUMN_PRODUCT_IMAGE_HEIGHT = CatalogSchema.COLUMN_PRODUCT_IMAGE_HEIGHT;
+    static final String COLUMN_PRODUCT_IMAGE_BYTES = CatalogSchema.COLUMN_PRODUCT_IMAGE_BYTES;
+
+    // Product full-text index over name and description (docid = products.id)
+    private static final String TABLE_PRODUCTS_FTS = CatalogSchema.TABLE_PRODUCTS_FTS;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    // Import Checkpoints Table (how far each catalog feed got)
+    static final String TABLE_IMPORT_CHECKPOINTS = "import_checkpoints";
+    static final String COLUMN_CHECKPOINT_SOURCE = "source";
+    static final String COLUMN_CHECKPOINT_RECORDS = "records_committed";
+    static final String COLUMN_CHECKPOINT_UPDATED = "updated_at";
 
     // ✅ Orders Table
-    private static final String TABLE_ORDERS = "orders";
-    private static final String COLUMN_ORDER_ID = "order_id";
-    private static final String COLUMN_ORDER_PHONE = "phone_number";
-    private static final String COLUMN_ORDER_ADDRESS = "order_address";
-    private static final String COLUMN_ORDER_PRODUCTS = "products";
-    private static final String COLUMN_ORDER_TOTAL = "total_price";
-    private static final String COLUMN_ORDER_DATE = "order_date";
-    private static final String COLUMN_ORDER_STATUS = "status";
+    static final String TABLE_ORDERS = CatalogSchema.TABLE_ORDERS;
+    static final String COLUMN_ORDER_ID = CatalogSchema.COLUMN_ORDER_ID;
+    static final String COLUMN_ORDER_PHONE = CatalogSchema.COLUMN_ORDER_PHONE;
+    static final String COLUMN_ORDER_ADDRESS = CatalogSchema.COLUMN_ORDER_ADDRESS;
+    static final String COLUMN_ORDER_PRODUCTS = CatalogSchema.COLUMN_ORDER_PRODUCTS;
+    static final String COLUMN_ORDER_TOTAL = CatalogSchema.COLUMN_ORDER_TOTAL;
+    static final String COLUMN_ORDER_DATE = CatalogSchema.COLUMN_ORDER_DATE;
+    static final String COLUMN_ORDER_DATE_MS = CatalogSchema.COLUMN_ORDER_DATE_MS;
+    static final String COLUMN_ORDER_STATUS = CatalogSchema.COLUMN_ORDER_STATUS;
+
+    // Order Stats Table (running count and revenue per status, kept by triggers)
+    static final String TABLE_ORDER_STATS = "order_stats";
+    private static final String COLUMN_STATS_STATUS = "status";
+    private static final String COLUMN_STATS_COUNT = "order_count";
+    private static final String COLUMN_STATS_REVENUE = "revenue";
+    // Row holding the totals over every status
+    private static final String STATS_ALL = "*";
+
+    // Sales rollups, one row per local day and per (day, product). Cancelled
+    // orders and orders without a time are left out.
+    static final String TABLE_DAILY_SALES = "daily_sales";
+    static final String TABLE_PRODUCT_SALES = "product_sales";
+    private static final String COLUMN_SALES_DAY = "day"; // local days since 1970-01-01
+    private static final String COLUMN_SALES_ORDER_COUNT = "order_count";
+    private static final String COLUMN_SALES_PRODUCT_ID = "product_id";
+    private static final String COLUMN_SALES_NAME = "name";
+    private static final String COLUMN_SALES_QTY = "qty";
+    private static final String COLUMN_SALES_REVENUE = "revenue";
+    private static final String STATUS_CANCELLED = "Cancelled";
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Cart Items Table (the shopping cart, one row per product)
+    static final String TABLE_CART_ITEMS = "cart_items";
+    private static final String COLUMN_CART_PRODUCT_ID = "product_id";
+    private static final String COLUMN_CART_NAME = "name";
+    private static final String COLUMN_CART_UNIT_PRICE = "unit_price";
+    private static final String COLUMN_CART_IMAGE = "image";
+    private static final String COLUMN_CART_QTY = "qty";
+    private static final String COLUMN_CART_ADDED_AT = "added_at";
+
+    // Order Items Table (one row per product line of an order)
+    static final String TABLE_ORDER_ITEMS = CatalogSchema.TABLE_ORDER_ITEMS;
+    private static final String COLUMN_ITEM_ID = CatalogSchema.COLUMN_ITEM_ID;
+    private static final String COLUMN_ITEM_ORDER_ID = CatalogSchema.COLUMN_ITEM_ORDER_ID;
+    private static final String COLUMN_ITEM_PRODUCT_ID = CatalogSchema.COLUMN_ITEM_PRODUCT_ID;
+    private static final String COLUMN_ITEM_NAME = CatalogSchema.COLUMN_ITEM_NAME;
+    private static final String COLUMN_ITEM_UNIT_PRICE = CatalogSchema.COLUMN_ITEM_UNIT_PRICE;
+    private static final String COLUMN_ITEM_QTY = CatalogSchema.COLUMN_ITEM_QTY;
+
+    // Image References Table (how many products use each image file, kept by
+    // triggers on products.image; rows are removed when the count reaches 0)
+    static final String TABLE_IMAGE_REFS = "image_refs";
+    private static final String COLUMN_REF_PATH = "path";
+    private static final String COLUMN_REF_COUNT = "ref_count";
+
+    // Everything an order write can touch, directly or through triggers
+    static final String[] ORDER_TABLES = {
+            TABLE_ORDERS, TABLE_ORDER_ITEMS, TABLE_ORDER_STATS, TABLE_DAILY_SALES, TABLE_PRODUCT_SALES
+    };
+
+    // Legacy JSON rows are moved into order_items this many orders per transaction
+    private static final int ORDER_ITEMS_BACKFILL_BATCH = 200;
 
     // Create Users Table
     private static final String CREATE_TABLE_USERS = "CREATE TABLE " + TABLE_USERS + "("
@@ -65,28 +164,213 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             + COLUMN_DOB + " TEXT"
             + ");";
 
-    // Create Products Table
-    private static final String CREATE_TABLE_PRODUCTS = "CREATE TABLE " + TABLE_PRODUCTS + "("
-            + COLUMN_PRODUCT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-            + COLUMN_PRODUCT_NAME + " TEXT NOT NULL,"
-            + COLUMN_PRODUCT_DESCRIPTION + " TEXT,"
-            + COLUMN_PRODUCT_PRICE + " REAL NOT NULL,"
-            + COLUMN_PRODUCT_IMAGE + " TEXT"
+    // Products, orders and order items, with their indexes and products_fts.
+    // The statements live in the core module's CatalogSchema, which the JVM
+    // benchmarks run as well.
+    private static final String CREATE_TABLE_PRODUCTS = CatalogSchema.CREATE_TABLE_PRODUCTS;
+    private static final String CREATE_TABLE_ORDERS = CatalogSchema.CREATE_TABLE_ORDERS; // ✅
+    private static final String CREATE_TABLE_ORDER_ITEMS = CatalogSchema.CREATE_TABLE_ORDER_ITEMS;
+    private static final String CREATE_INDEX_ORDER_ITEMS_ORDER = CatalogSchema.CREATE_INDEX_ORDER_ITEMS_ORDER;
+    private static final String CREATE_INDEX_ORDER_ITEMS_PRODUCT = CatalogSchema.CREATE_INDEX_ORDER_ITEMS_PRODUCT;
+    private static final String CREATE_TABLE_PRODUCTS_FTS = CatalogSchema.CREATE_TABLE_PRODUCTS_FTS;
+    private static final String CREATE_TABLE_PRODUCTS_FTS_SIMPLE = CatalogSchema.CREATE_TABLE_PRODUCTS_FTS_SIMPLE;
+    private static final String[] CREATE_PRODUCTS_FTS_TRIGGERS = CatalogSchema.createProductsFtsTriggers();
+    private static final String[] CREATE_ORDERS_INDEXES = CatalogSchema.createOrdersIndexes();
+
+    // Create Import Checkpoints Table
+    private static final String CREATE_TABLE_IMPORT_CHECKPOINTS = "CREATE TABLE IF NOT EXISTS " + TABLE_IMPORT_CHECKPOINTS + "("
+            + COLUMN_CHECKPOINT_SOURCE + " TEXT PRIMARY KEY,"
+            + COLUMN_CHECKPOINT_RECORDS + " INTEGER NOT NULL,"
+            + COLUMN_CHECKPOINT_UPDATED + " INTEGER NOT NULL"
+            + ");";
+
+    // products_fts update triggers from version 6, which fired on every
+    // column; recreated from CREATE_PRODUCTS_FTS_TRIGGERS
+    private static final String[] DROP_PRODUCTS_FTS_UPDATE_TRIGGERS = {
+            "DROP TRIGGER IF EXISTS products_fts_bu;",
+            "DROP TRIGGER IF EXISTS products_fts_au;"
+    };
+
+    // Text-date indexes from version 7, replaced by the ones above
+    private static final String[] DROP_ORDERS_TEXT_DATE_INDEXES = {
+            "DROP INDEX IF EXISTS idx_orders_date;",
+            "DROP INDEX IF EXISTS idx_orders_phone;"
+    };
+
+    // Create Order Stats Table
+    private static final String CREATE_TABLE_ORDER_STATS = "CREATE TABLE IF NOT EXISTS " + TABLE_ORDER_STATS + "("
+            + COLUMN_STATS_STATUS + " TEXT PRIMARY KEY,"
+            + COLUMN_STATS_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+            + COLUMN_STATS_REVENUE + " REAL NOT NULL DEFAULT 0"
+            + ");";
+
+    // Keep order_stats in step with orders. Each change is applied to the
+    // order's status row and to the '*' totals row. A NULL status counts
+    // under ''. Rows are created with INSERT OR IGNORE because the SQLite on
+    // older devices has no upsert.
+    private static final String ORDER_STATS_KEY_NEW = "IFNULL(new." + COLUMN_ORDER_STATUS + ", '')";
+    private static final String ORDER_STATS_KEY_OLD = "IFNULL(old." + COLUMN_ORDER_STATUS + ", '')";
+
+    private static final String[] CREATE_ORDER_STATS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS order_stats_ai AFTER INSERT ON " + TABLE_ORDERS + " BEGIN"
+                    + " INSERT OR IGNORE INTO " + TABLE_ORDER_STATS + "(" + COLUMN_STATS_STATUS + ")"
+                    + " VALUES (" + ORDER_STATS_KEY_NEW + "), ('" + STATS_ALL + "');"
+                    + " UPDATE " + TABLE_ORDER_STATS + " SET "
+                    + COLUMN_STATS_COUNT + " = " + COLUMN_STATS_COUNT + " + 1, "
+                    + COLUMN_STATS_REVENUE + " = " + COLUMN_STATS_REVENUE + " + IFNULL(new." + COLUMN_ORDER_TOTAL + ", 0)"
+                    + " WHERE " + COLUMN_STATS_STATUS + " IN (" + ORDER_STATS_KEY_NEW + ", '" + STATS_ALL + "');"
+                    + " END;",
+            "CREATE TRIGGER IF NOT EXISTS order_stats_ad AFTER DELETE ON " + TABLE_ORDERS + " BEGIN"
+                    + " UPDATE " + TABLE_ORDER_STATS + " SET "
+                    + COLUMN_STATS_COUNT + " = " + COLUMN_STATS_COUNT + " - 1, "
+                    + COLUMN_STATS_REVENUE + " = " + COLUMN_STATS_REVENUE + " - IFNULL(old." + COLUMN_ORDER_TOTAL + ", 0)"
+                    + " WHERE " + COLUMN_STATS_STATUS + " IN (" + ORDER_STATS_KEY_OLD + ", '" + STATS_ALL + "');"
+                    + " END;",
+            // Only the columns the stats depend on; the legacy backfill
+            // rewriting orders.products does not fire this
+            "CREATE TRIGGER IF NOT EXISTS order_stats_au AFTER UPDATE OF "
+                    + COLUMN_ORDER_STATUS + ", " + COLUMN_ORDER_TOTAL + " ON " + TABLE_ORDERS + " BEGIN"
+                    + " UPDATE " + TABLE_ORDER_STATS + " SET "
+                    + COLUMN_STATS_COUNT + " = " + COLUMN_STATS_COUNT + " - 1, "
+                    + COLUMN_STATS_REVENUE + " = " + COLUMN_STATS_REVENUE + " - IFNULL(old." + COLUMN_ORDER_TOTAL + ", 0)"
+                    + " WHERE " + COLUMN_STATS_STATUS + " IN (" + ORDER_STATS_KEY_OLD + ", '" + STATS_ALL + "');"
+                    + " INSERT OR IGNORE INTO " + TABLE_ORDER_STATS + "(" + COLUMN_STATS_STATUS + ")"
+                    + " VALUES (" + ORDER_STATS_KEY_NEW + ");"
+                    + " UPDATE " + TABLE_ORDER_STATS + " SET "
+                    + COLUMN_STATS_COUNT + " = " + COLUMN_STATS_COUNT + " + 1, "
+                    + COLUMN_STATS_REVENUE + " = " + COLUMN_STATS_REVENUE + " + IFNULL(new." + COLUMN_ORDER_TOTAL + ", 0)"
+                    + " WHERE " + COLUMN_STATS_STATUS + " IN (" + ORDER_STATS_KEY_NEW + ", '" + STATS_ALL + "');"
+                    + " END;"
+    };
+
+    // Create Cart Items Table
+    private static final String CREATE_TABLE_CART_ITEMS = "CREATE TABLE IF NOT EXISTS " + TABLE_CART_ITEMS + "("
+            + COLUMN_CART_PRODUCT_ID + " INTEGER PRIMARY KEY,"
+            + COLUMN_CART_NAME + " TEXT,"
+            + COLUMN_CART_UNIT_PRICE + " REAL NOT NULL,"
+            + COLUMN_CART_IMAGE + " TEXT,"
+            + COLUMN_CART_QTY + " INTEGER NOT NULL,"
+            + COLUMN_CART_ADDED_AT + " INTEGER NOT NULL"
+            + ");";
+
+    // Create Image References Table
+    private static final String CREATE_TABLE_IMAGE_REFS = "CREATE TABLE IF NOT EXISTS " + TABLE_IMAGE_REFS + "("
+            + COLUMN_REF_PATH + " TEXT PRIMARY KEY,"
+            + COLUMN_REF_COUNT + " INTEGER NOT NULL DEFAULT 0"
+            + ");";
+
+    // Products without an image store NULL or ''; neither is counted
+    private static final String IMAGE_REFS_ADD_NEW =
+            " INSERT OR IGNORE INTO " + TABLE_IMAGE_REFS + "(" + COLUMN_REF_PATH + ")"
+                    + " SELECT new." + COLUMN_PRODUCT_IMAGE + " WHERE IFNULL(new." + COLUMN_PRODUCT_IMAGE + ", '') != '';"
+                    + " UPDATE " + TABLE_IMAGE_REFS + " SET " + COLUMN_REF_COUNT + " = " + COLUMN_REF_COUNT + " + 1"
+                    + " WHERE " + COLUMN_REF_PATH + " = new." + COLUMN_PRODUCT_IMAGE + ";";
+    private static final String IMAGE_REFS_DROP_OLD =
+            " UPDATE " + TABLE_IMAGE_REFS + " SET " + COLUMN_REF_COUNT + " = " + COLUMN_REF_COUNT + " - 1"
+                    + " WHERE " + COLUMN_REF_PATH + " = old." + COLUMN_PRODUCT_IMAGE + ";"
+                    + " DELETE FROM " + TABLE_IMAGE_REFS + " WHERE " + COLUMN_REF_PATH + " = old." + COLUMN_PRODUCT_IMAGE
+                    + " AND " + COLUMN_REF_COUNT + " <= 0;";
+
+    private static final String[] CREATE_IMAGE_REFS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS image_refs_ai AFTER INSERT ON " + TABLE_PRODUCTS + " BEGIN"
+                    + IMAGE_REFS_ADD_NEW
+                    + " END;",
+            "CREATE TRIGGER IF NOT EXISTS image_refs_ad AFTER DELETE ON " + TABLE_PRODUCTS + " BEGIN"
+                    + IMAGE_REFS_DROP_OLD
+                    + " END;",
+            // Thumbnail paths follow the image, so only the image column is watched
+            "CREATE TRIGGER IF NOT EXISTS image_refs_au AFTER UPDATE OF " + COLUMN_PRODUCT_IMAGE + " ON " + TABLE_PRODUCTS
+                    + " WHEN old." + COLUMN_PRODUCT_IMAGE + " IS NOT new." + COLUMN_PRODUCT_IMAGE + " BEGIN"
+                    + IMAGE_REFS_DROP_OLD
+                    + IMAGE_REFS_ADD_NEW
+                    + " END;"
+    };
+
+    // Create Sales Rollup Tables
+    private static final String CREATE_TABLE_DAILY_SALES = "CREATE TABLE IF NOT EXISTS " + TABLE_DAILY_SALES + "("
+            + COLUMN_SALES_DAY + " INTEGER PRIMARY KEY,"
+            + COLUMN_SALES_ORDER_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+            + COLUMN_SALES_REVENUE + " REAL NOT NULL DEFAULT 0"
             + ");";
 
-    // ✅ Create Orders Table
-    private static final String CREATE_TABLE_ORDERS = "CREATE TABLE " + TABLE_ORDERS + "("
-            + COLUMN_ORDER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-            + COLUMN_ORDER_PHONE + " TEXT,"
-            + COLUMN_ORDER_ADDRESS + " TEXT,"
-            + COLUMN_ORDER_PRODUCTS + " TEXT,"
-            + COLUMN_ORDER_TOTAL + " REAL,"
-            + COLUMN_ORDER_DATE + " TEXT,"
-            + COLUMN_ORDER_STATUS + " TEXT DEFAULT 'Pending'"
+    private static final String CREATE_TABLE_PRODUCT_SALES = "CREATE TABLE IF NOT EXISTS " + TABLE_PRODUCT_SALES + "("
+            + COLUMN_SALES_DAY + " INTEGER NOT NULL,"
+            + COLUMN_SALES_PRODUCT_ID + " INTEGER NOT NULL,"
+            + COLUMN_SALES_NAME + " TEXT,"
+            + COLUMN_SALES_QTY + " INTEGER NOT NULL DEFAULT 0,"
+            + COLUMN_SALES_REVENUE + " REAL NOT NULL DEFAULT 0,"
+            + "PRIMARY KEY (" + COLUMN_SALES_DAY + ", " + COLUMN_SALES_PRODUCT_ID + ")"
             + ");";
 
+    // Local day of orders.order_date_ms in SQL; matches localDay() below
+    private static final String SQL_ORDER_DAY = "CAST(strftime('%s', o." + COLUMN_ORDER_DATE_MS
+            + " / 1000, 'unixepoch', 'localtime') AS INTEGER) / 86400";
+    // An order without a status still counts as a sale
+    private static final String SQL_ORDER_NOT_CANCELLED = "IFNULL(o." + COLUMN_ORDER_STATUS + ", '') != '"
+            + STATUS_CANCELLED + "'";
+    private static final String SQL_ORDER_COUNTS_FOR_SALES = SQL_ORDER_NOT_CANCELLED
+            + " AND o." + COLUMN_ORDER_DATE_MS + " IS NOT NULL";
+
+    // Partial index over orders that still carry the old JSON blob. It is
+    // empty once the backfill has finished, so checking for leftover work on
+    // every open costs one index probe instead of a table scan.
+    private static final String CREATE_INDEX_ORDERS_LEGACY_PRODUCTS = "CREATE INDEX IF NOT EXISTS idx_orders_legacy_products ON "
+            + TABLE_ORDERS + "(" + COLUMN_ORDER_ID + ") WHERE " + COLUMN_ORDER_PRODUCTS + " IS NOT NULL;";
+
+    private static volatile DatabaseHelper instance;
+
+    private final DatabaseConfig config;
+
+    // Roughly a few thousand products with descriptions and image paths
+    private static final long CATALOG_CACHE_BYTES = 2 * 1024 * 1024;
+
+    private final ProductCatalogCache catalogCache = new ProductCatalogCache(CATALOG_CACHE_BYTES);
+
+    // Which tables the writes below touched; drives LiveQuery refreshes
+    private final InvalidationTracker invalidationTracker = new InvalidationTracker();
+
+    // Point lookups: products opened from the admin list, and the few
+    // accounts signed in on this device
+    private static final int PRODUCT_LOOKUP_CACHE_SIZE = 100;
+    private static final int USER_LOOKUP_CACHE_SIZE = 8;
+
+    private final EntityCache<Integer, Product> productLookupCache =
+            new EntityCache<>(PRODUCT_LOOKUP_CACHE_SIZE, ProductRowMapper::copyOf);
+    private final EntityCache<String, User> userLookupCache =
+            new EntityCache<>(USER_LOOKUP_CACHE_SIZE, UserRowMapper::copyOf);
+
+    // The one helper every screen shares. It holds the application context,
+    // so it never leaks an Activity, and keeps one connection pool and
+    // statement cache for the whole process.
+    public static DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DatabaseHelper.class) {
+                if (instance == null) {
+                    instance = new DatabaseHelper(context.getApplicationContext(),
+                            DatabaseConfig.writeAheadLog());
+                }
+            }
+        }
+        return instance;
+    }
+
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DatabaseConfig.rollbackJournal());
+    }
+
+    public DatabaseHelper(Context context, DatabaseConfig config) {
+        this(context, DATABASE_NAME, null, config);
+    }
+
+    // Tests open a separate database file and can watch every query through the factory
+    DatabaseHelper(Context context, String name, SQLiteDatabase.CursorFactory factory) {
+        this(context, name, factory, DatabaseConfig.rollbackJournal());
+    }
+
+    DatabaseHelper(Context context, String name, SQLiteDatabase.CursorFactory factory,
+                   DatabaseConfig config) {
+        super(context, name, factory, DATABASE_VERSION);
+        this.config = config;
     }
 
     @Override
@@ -94,6 +378,61 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(CREATE_TABLE_USERS);
         db.execSQL(CREATE_TABLE_PRODUCTS);
         db.execSQL(CREATE_TABLE_ORDERS); // ✅ Create orders table
+        createOrderItemsTable(db);
+        createProductsFts(db);
+        createOrdersIndexes(db);
+        db.execSQL(CREATE_TABLE_IMPORT_CHECKPOINTS);
+        createOrderStats(db);
+        db.execSQL(CREATE_TABLE_DAILY_SALES);
+        db.execSQL(CREATE_TABLE_PRODUCT_SALES);
+        db.execSQL(CREATE_TABLE_CART_ITEMS);
+        createImageRefs(db);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // order_items rows are removed together with their order
+        db.setForeignKeyConstraintsEnabled(true);
+
+        if (config.isWalEnabled()) {
+            // Also gives the connection pool its extra reader connections
+            db.enableWriteAheadLogging();
+        }
+        if (config.getSynchronous() != null) {
+            db.execSQL("PRAGMA synchronous = " + config.getSynchronous());
+        }
+        if (config.isWalEnabled() && config.getWalAutoCheckpointPages() > 0) {
+            runPragma(db, "PRAGMA wal_autocheckpoint = " + config.getWalAutoCheckpointPages());
+        }
+        if (config.getJournalSizeLimitBytes() >= 0) {
+            runPragma(db, "PRAGMA journal_size_limit = " + config.getJournalSizeLimitBytes());
+        }
+    }
+
+    // PRAGMAs that echo their new value must go through a query, not execSQL
+    private static void runPragma(SQLiteDatabase db, String pragma) {
+        Cursor cursor = db.rawQuery(pragma, null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Copies the WAL back into the database file and truncates it. Cheap
+    // when little was written; worth calling when the app goes idle.
+    public void checkpointWal() {
+        if (config.isWalEnabled()) {
+            runPragma(getWritableDatabase(), "PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (!db.isReadOnly()) {
+            backfillOrderItems(db);
+        }
     }
 
     @Override
@@ -104,11 +443,249 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         if (oldVersion < 4) {
             db.execSQL(CREATE_TABLE_ORDERS); // ✅ Add orders table
         }
+        if (oldVersion < 5) {
+            // Rows are copied out of orders.products in onOpen, in small
+            // transactions, once this upgrade transaction has committed
+            createOrderItemsTable(db);
+        }
+        if (oldVersion < 6) {
+            createProductsFts(db);
+            // Index the products that already exist
+            db.execSQL("INSERT INTO " + TABLE_PRODUCTS_FTS + "(" + TABLE_PRODUCTS_FTS + ") VALUES('rebuild');");
+        }
+        if (oldVersion < 8) {
+            db.execSQL(CREATE_TABLE_IMPORT_CHECKPOINTS);
+        }
+        if (oldVersion < 9) {
+            createOrderStats(db);
+            // Count the orders that already exist
+            fillOrderStats(db);
+        }
+        if (oldVersion < 10) {
+            if (oldVersion >= 4) {
+                // An orders table created by the step above already has it
+                db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COLUMN_ORDER_DATE_MS + " INTEGER;");
+                backfillOrderDateMillis(db);
+            }
+            // Version 7 indexed the text column; the orders indexes are now
+            // built on order_date_ms, so they are created here
+            for (String drop : DROP_ORDERS_TEXT_DATE_INDEXES) {
+                db.execSQL(drop);
+            }
+            createOrdersIndexes(db);
+            db.execSQL("ANALYZE " + TABLE_ORDERS + ";");
+        }
+        if (oldVersion < 11) {
+            db.execSQL(CREATE_TABLE_DAILY_SALES);
+            db.execSQL(CREATE_TABLE_PRODUCT_SALES);
+            // Orders still waiting for the order_items backfill add their
+            // products when they are migrated
+            fillSalesRollups(db);
+        }
+        if (oldVersion < 12) {
+            db.execSQL(CREATE_TABLE_CART_ITEMS);
+        }
+        if (oldVersion < 13 && oldVersion >= 3) {
+            // A products table created by the first step already has them.
+            // Existing products keep showing their full image until edited.
+            db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + COLUMN_PRODUCT_IMAGE_LIST + " TEXT;");
+            db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + COLUMN_PRODUCT_IMAGE_DETAIL + " TEXT;");
+        }
+        if (oldVersion < 14) {
+            createImageRefs(db);
+            // Count the images existing products already use
+            fillImageRefs(db);
+        }
+        if (oldVersion < 15 && oldVersion >= 3) {
+            // Existing rows start unchecked; the verifier fills them in
+            db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + COLUMN_PRODUCT_IMAGE_OK + " INTEGER;");
+            db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + COLUMN_PRODUCT_IMAGE_WIDTH + " INTEGER NOT NULL DEFAULT 0;");
+            db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + COLUMN_PRODUCT_IMAGE_HEIGHT + " INTEGER NOT NULL DEFAULT 0;");
+            db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + COLUMN_PRODUCT_IMAGE_BYTES + " INTEGER NOT NULL DEFAULT 0;");
+        }
+        if (oldVersion < 16 && oldVersion >= 6) {
+            // The index itself is unchanged; only when it is kept up to date
+            for (String drop : DROP_PRODUCTS_FTS_UPDATE_TRIGGERS) {
+                db.execSQL(drop);
+            }
+            for (String trigger : CREATE_PRODUCTS_FTS_TRIGGERS) {
+                db.execSQL(trigger);
+            }
+        }
+    }
+
+    // Convert the legacy order_date text to epoch millis. The text was
+    // written in the device's time zone and locale, so digits may be in any
+    // script; they are normalised to ASCII before parsing. Rows that still
+    // cannot be read are left NULL and only drop out of date ranges.
+    private void backfillOrderDateMillis(SQLiteDatabase db) {
+        SimpleDateFormat legacyFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        legacyFormat.setLenient(false);
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_ORDERS
+                + " SET " + COLUMN_ORDER_DATE_MS + " = ? WHERE " + COLUMN_ORDER_ID + " = ?");
+        Cursor cursor = db.query(TABLE_ORDERS,
+                new String[]{COLUMN_ORDER_ID, COLUMN_ORDER_DATE},
+                COLUMN_ORDER_DATE + " IS NOT NULL",
+                null, null, null, null);
+        int unreadable = 0;
+        try {
+            while (cursor.moveToNext()) {
+                try {
+                    Date date = legacyFormat.parse(toAsciiDigits(cursor.getString(1)));
+                    update.bindLong(1, date.getTime());
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                } catch (ParseException e) {
+                    unreadable++;
+                }
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+        if (unreadable > 0) {
+            Log.w(TAG, unreadable + " order dates could not be converted");
+        }
+    }
+
+    private static String toAsciiDigits(String text) {
+        StringBuilder ascii = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            ascii.append(Character.isDigit(c) ? (char) ('0' + Character.digit(c, 10)) : c);
+        }
+        return ascii.toString().trim();
+    }
+
+    private void createOrderStats(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_ORDER_STATS);
+        for (String trigger : CREATE_ORDER_STATS_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_ORDER_STATS + "(" + COLUMN_STATS_STATUS + ")"
+                + " VALUES ('" + STATS_ALL + "');");
+    }
+
+    private void createImageRefs(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_IMAGE_REFS);
+        for (String trigger : CREATE_IMAGE_REFS_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    private void fillImageRefs(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_IMAGE_REFS + ";");
+        db.execSQL("INSERT INTO " + TABLE_IMAGE_REFS + "(" + COLUMN_REF_PATH + ", " + COLUMN_REF_COUNT + ")"
+                + " SELECT " + COLUMN_PRODUCT_IMAGE + ", COUNT(*) FROM " + TABLE_PRODUCTS
+                + " WHERE IFNULL(" + COLUMN_PRODUCT_IMAGE + ", '') != ''"
+                + " GROUP BY " + COLUMN_PRODUCT_IMAGE + ";");
+    }
+
+    // Recount order_stats from the orders table; caller holds the transaction
+    private void fillOrderStats(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_ORDER_STATS + ";");
+        db.execSQL("INSERT INTO " + TABLE_ORDER_STATS + "("
+                + COLUMN_STATS_STATUS + ", " + COLUMN_STATS_COUNT + ", " + COLUMN_STATS_REVENUE + ")"
+                + " SELECT IFNULL(" + COLUMN_ORDER_STATUS + ", ''), COUNT(*), IFNULL(SUM(" + COLUMN_ORDER_TOTAL + "), 0)"
+                + " FROM " + TABLE_ORDERS + " GROUP BY IFNULL(" + COLUMN_ORDER_STATUS + ", '');");
+        db.execSQL("INSERT INTO " + TABLE_ORDER_STATS + "("
+                + COLUMN_STATS_STATUS + ", " + COLUMN_STATS_COUNT + ", " + COLUMN_STATS_REVENUE + ")"
+                + " SELECT '" + STATS_ALL + "', COUNT(*), IFNULL(SUM(" + COLUMN_ORDER_TOTAL + "), 0)"
+                + " FROM " + TABLE_ORDERS + ";");
+    }
+
+    private void createOrdersIndexes(SQLiteDatabase db) {
+        for (String index : CREATE_ORDERS_INDEXES) {
+            db.execSQL(index);
+        }
+    }
+
+    private void createProductsFts(SQLiteDatabase db) {
+        try {
+            db.execSQL(CREATE_TABLE_PRODUCTS_FTS);
+        } catch (SQLiteException e) {
+            Log.w(TAG, "unicode61 tokenizer unavailable, using simple", e);
+            db.execSQL(CREATE_TABLE_PRODUCTS_FTS_SIMPLE);
+        }
+        for (String trigger : CREATE_PRODUCTS_FTS_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    private void createOrderItemsTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_ORDER_ITEMS);
+        db.execSQL(CREATE_INDEX_ORDER_ITEMS_ORDER);
+        db.execSQL(CREATE_INDEX_ORDER_ITEMS_PRODUCT);
+        db.execSQL(CREATE_INDEX_ORDERS_LEGACY_PRODUCTS);
+    }
+
+    // Move the JSON product list of pre-version-5 orders into order_items.
+    // Each batch commits on its own and clears the blobs it migrated, so an
+    // interrupted backfill simply resumes on the next open.
+    private void backfillOrderItems(SQLiteDatabase db) {
+        int lastOrderId = 0;
+        while (true) {
+            List<Integer> orderIds = new ArrayList<>();
+            List<String> blobs = new ArrayList<>();
+
+            Cursor cursor = db.query(TABLE_ORDERS,
+                    new String[]{COLUMN_ORDER_ID, COLUMN_ORDER_PRODUCTS},
+                    COLUMN_ORDER_PRODUCTS + " IS NOT NULL AND " + COLUMN_ORDER_ID + " > ?",
+                    new String[]{String.valueOf(lastOrderId)},
+                    null, null,
+                    COLUMN_ORDER_ID + " ASC",
+                    String.valueOf(ORDER_ITEMS_BACKFILL_BATCH));
+            try {
+                while (cursor.moveToNext()) {
+                    orderIds.add(cursor.getInt(0));
+                    blobs.add(cursor.getString(1));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            if (orderIds.isEmpty()) {
+                return;
+            }
+            lastOrderId = orderIds.get(orderIds.size() - 1);
+
+            SQLiteStatement insertItem = db.compileStatement(CatalogSchema.INSERT_ORDER_ITEM_SQL);
+            SQLiteStatement clearBlob = db.compileStatement("UPDATE " + TABLE_ORDERS
+                    + " SET " + COLUMN_ORDER_PRODUCTS + " = NULL WHERE " + COLUMN_ORDER_ID + " = ?");
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < orderIds.size(); i++) {
+                    int orderId = orderIds.get(i);
+                    List<OrderItem> items;
+                    try {
+                        items = LegacyOrderItems.parse(blobs.get(i));
+                    } catch (JSONException e) {
+                        // Leave the blob in place so nothing is lost
+                        Log.w(TAG, "Skipping unreadable products of order " + orderId, e);
+                        continue;
+                    }
+                    for (OrderItem item : items) {
+                        bindOrderItem(insertItem, orderId, item);
+                        insertItem.executeInsert();
+                    }
+                    // daily_sales already counts the order itself
+                    applyToSalesRollups(db, orderId, 1, false);
+                    clearBlob.bindLong(1, orderId);
+                    clearBlob.executeUpdateDelete();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                insertItem.close();
+                clearBlob.close();
+            }
+        }
     }
 
     // ==================== USER METHODS ====================
 
-    private String encryptPassword(String password) {
+    static String encryptPassword(String password) {
         try {
             MessageDigest md = MessageDigest.getInstance("MD5");
             byte[] hashBytes = md.digest(password.getBytes(StandardCharsets.UTF_8));
@@ -135,7 +712,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_PHONE, user.getPhone());
         values.put(COLUMN_GENDER, user.getGender());
         long result = db.insert(TABLE_USERS, null, values);
-        return result != -1;
+        if (result == -1) {
+            return false;
+        }
+        invalidationTracker.notifyChanged(TABLE_USERS);
+        return true;
     }
 
     public boolean checkEmail(String email) {
@@ -174,34 +755,26 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
 
     public User getUserByEmail(String email) {
+        User cached = userLookupCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        long readToken = userLookupCache.beginRead();
+
         SQLiteDatabase db = this.getReadableDatabase();
-        User user = null;
-        Cursor cursor = null;
+        Cursor cursor = db.query(TABLE_USERS,
+                null,
+                COLUMN_EMAIL + "=?",
+                new String[]{email},
+                null, null, null);
 
+        User user;
         try {
-            cursor = db.query(TABLE_USERS,
-                    null,
-                    COLUMN_EMAIL + "=?",
-                    new String[]{email},
-                    null, null, null);
-
-            if (cursor != null && cursor.moveToFirst()) {
-                user = new User();
-                user.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-                user.setName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NAME)));
-                user.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EMAIL)));
-                user.setPassword(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PASSWORD)));
-                user.setPhone(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PHONE)));
-                user.setGender(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_GENDER)));
-                user.setAddress(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ADDRESS)));
-                user.setDateOfBirth(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DOB)));
-            }
+            user = new UserRowMapper(cursor).mapFirst(cursor);
         } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            cursor.close();
         }
-
+        userLookupCache.put(readToken, email, user);
         return user;
     }
 
@@ -217,6 +790,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_EMAIL + "=?",
                 new String[]{email});
 
+        if (rows > 0) {
+            userLookupCache.invalidate(email);
+            invalidationTracker.notifyChanged(TABLE_USERS);
+        }
         return rows > 0;
     }
 
@@ -232,6 +809,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_EMAIL + "=?",
                 new String[]{email});
 
+        if (rows > 0) {
+            userLookupCache.invalidate(email);
+            invalidationTracker.notifyChanged(TABLE_USERS);
+        }
         return rows > 0;
     }
 
@@ -248,6 +829,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_EMAIL + "=?",
                 new String[]{email});
 
+        if (rows > 0) {
+            userLookupCache.invalidate(email);
+            invalidationTracker.notifyChanged(TABLE_USERS);
+        }
         return rows > 0;
     }
 
@@ -258,6 +843,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_EMAIL + "=?",
                 new String[]{email});
 
+        if (rows > 0) {
+            userLookupCache.invalidate(email);
+            invalidationTracker.notifyChanged(TABLE_USERS);
+        }
         return rows > 0;
     }
 
@@ -270,72 +859,151 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_PRODUCT_DESCRIPTION, product.getDescription());
         values.put(COLUMN_PRODUCT_PRICE, product.getPrice());
         values.put(COLUMN_PRODUCT_IMAGE, product.getImage());
+        values.put(COLUMN_PRODUCT_IMAGE_LIST, product.getListImagePath());
+        values.put(COLUMN_PRODUCT_IMAGE_DETAIL, product.getDetailImagePath());
+        putImageMetadata(values, product);
 
         long result = db.insert(TABLE_PRODUCTS, null, values);
-        return result != -1;
+        if (result == -1) {
+            return false;
+        }
+        product.setId((int) result);
+        catalogCache.onInserted(product);
+        invalidationTracker.notifyChanged(TABLE_PRODUCTS);
+        return true;
+    }
+
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
+    }
+
+    // In-memory catalog shared by the product reads below; see ProductCatalogCache
+    public ProductCatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+
+    // LRU caches behind getProductById and getUserByEmail, exposed for their stats
+    public EntityCache<Integer, Product> getProductLookupCache() {
+        return productLookupCache;
+    }
+
+    public EntityCache<String, User> getUserLookupCache() {
+        return userLookupCache;
+    }
+
+    // Bulk ingest for catalog loads; see ProductBulkInserter
+    public int bulkInsertProducts(Iterator<Product> products, int batchSize,
+                                  ProductBulkInserter.ProgressListener listener) {
+        return new ProductBulkInserter(this, batchSize, listener).insertAll(products);
+    }
+
+    // Streams a product XML feed into the catalog, resuming an interrupted
+    // import of the same source; see XmlCatalogImporter
+    public int importProductsXml(InputStream in, String sourceKey, int batchSize,
+                                 ProductBulkInserter.ProgressListener listener)
+            throws IOException, XmlPullParserException {
+        return new XmlCatalogImporter(this).importCatalog(in, sourceKey, batchSize, listener);
     }
 
     public List<Product> getAllProducts() {
-        List<Product> productList = new ArrayList<>();
+        List<Product> cached = catalogCache.getAll();
+        if (cached != null) {
+            return cached;
+        }
+        long version = catalogCache.getVersion();
+
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = null;
+        Cursor cursor = db.query(TABLE_PRODUCTS,
+                ProductRowMapper.FULL_PROJECTION, null, null, null, null,
+                COLUMN_PRODUCT_ID + " DESC");
 
+        List<Product> productList;
         try {
-            cursor = db.query(TABLE_PRODUCTS,
-                    null, null, null, null, null,
-                    COLUMN_PRODUCT_ID + " DESC");
+            productList = new ProductRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+        catalogCache.putAll(version, productList);
+        return productList;
+    }
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    Product product = new Product();
-                    product.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_ID)));
-                    product.setName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_NAME)));
-                    product.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_DESCRIPTION)));
-                    product.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_PRICE)));
+    // Keyset paging over the same id DESC order as getAllProducts().
+    // Pass afterId <= 0 for the first page, then the id of the last row
+    // already shown. Each page is a primary key range seek, so its cost does
+    // not grow with how far down the list the user has scrolled.
+    public List<Product> getProductsPage(int afterId, int limit) {
+        return getProductsPage(afterId, limit, true);
+    }
 
-                    String imagePath = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_IMAGE));
-                    product.setImage(imagePath != null ? imagePath : "");
+    // Same page without the description column, for rows that never show it
+    public List<Product> getProductsPage(int afterId, int limit, boolean withDescription) {
+        List<Product> cached = catalogCache.getPage(afterId, limit, withDescription);
+        if (cached != null) {
+            return cached;
+        }
+        long version = catalogCache.getVersion();
 
-                    productList.add(product);
-                } while (cursor.moveToNext());
-            }
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String selection = null;
+        String[] selectionArgs = null;
+        if (afterId > 0) {
+            selection = COLUMN_PRODUCT_ID + " < ?";
+            selectionArgs = new String[]{String.valueOf(afterId)};
+        }
+
+        Cursor cursor = db.query(TABLE_PRODUCTS,
+                withDescription ? ProductRowMapper.FULL_PROJECTION : ProductRowMapper.SUMMARY_PROJECTION,
+                selection,
+                selectionArgs,
+                null, null,
+                COLUMN_PRODUCT_ID + " DESC",
+                String.valueOf(limit));
+
+        List<Product> page;
+        try {
+            page = new ProductRowMapper(cursor).mapAll(cursor);
         } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            cursor.close();
         }
+        catalogCache.putPage(version, afterId, limit, withDescription, page);
+        return page;
+    }
 
-        return productList;
+    public int getProductCount() {
+        int cached = catalogCache.getCount();
+        if (cached >= 0) {
+            return cached;
+        }
+        long version = catalogCache.getVersion();
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        int count = (int) DatabaseUtils.queryNumEntries(db, TABLE_PRODUCTS);
+        catalogCache.putCount(version, count);
+        return count;
     }
 
     public Product getProductById(int id) {
+        Product cached = productLookupCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long readToken = productLookupCache.beginRead();
+
         SQLiteDatabase db = this.getReadableDatabase();
-        Product product = null;
-        Cursor cursor = null;
+        Cursor cursor = db.query(TABLE_PRODUCTS,
+                ProductRowMapper.FULL_PROJECTION,
+                COLUMN_PRODUCT_ID + "=?",
+                new String[]{String.valueOf(id)},
+                null, null, null);
 
+        Product product;
         try {
-            cursor = db.query(TABLE_PRODUCTS,
-                    null,
-                    COLUMN_PRODUCT_ID + "=?",
-                    new String[]{String.valueOf(id)},
-                    null, null, null);
-
-            if (cursor != null && cursor.moveToFirst()) {
-                product = new Product();
-                product.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_ID)));
-                product.setName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_NAME)));
-                product.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_DESCRIPTION)));
-                product.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_PRICE)));
-
-                String imagePath = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_IMAGE));
-                product.setImage(imagePath != null ? imagePath : "");
-            }
+            product = new ProductRowMapper(cursor).mapFirst(cursor);
         } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            cursor.close();
         }
-
+        productLookupCache.put(readToken, id, product);
         return product;
     }
 
@@ -347,11 +1015,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_PRODUCT_DESCRIPTION, product.getDescription());
         values.put(COLUMN_PRODUCT_PRICE, product.getPrice());
         values.put(COLUMN_PRODUCT_IMAGE, product.getImage());
+        values.put(COLUMN_PRODUCT_IMAGE_LIST, product.getListImagePath());
+        values.put(COLUMN_PRODUCT_IMAGE_DETAIL, product.getDetailImagePath());
+        putImageMetadata(values, product);
 
         int rows = db.update(TABLE_PRODUCTS, values,
                 COLUMN_PRODUCT_ID + "=?",
                 new String[]{String.valueOf(product.getId())});
 
+        if (rows > 0) {
+            catalogCache.onUpdated(product);
+            productLookupCache.invalidate(product.getId());
+            invalidationTracker.notifyChanged(TABLE_PRODUCTS);
+        }
         return rows > 0;
     }
 
@@ -362,134 +1038,623 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_PRODUCT_ID + "=?",
                 new String[]{String.valueOf(id)});
 
+        if (rows > 0) {
+            catalogCache.onDeleted(id);
+            productLookupCache.invalidate(id);
+            invalidationTracker.notifyChanged(TABLE_PRODUCTS);
+        }
         return rows > 0;
     }
 
-    public List<Product> searchProducts(String searchText) {
-        List<Product> productList = new ArrayList<>();
+    private static void putImageMetadata(ContentValues values, Product product) {
+        Boolean available = product.getImageAvailable();
+        if (available == null) {
+            values.putNull(COLUMN_PRODUCT_IMAGE_OK);
+        } else {
+            values.put(COLUMN_PRODUCT_IMAGE_OK, available ? 1 : 0);
+        }
+        values.put(COLUMN_PRODUCT_IMAGE_WIDTH, product.getImageWidth());
+        values.put(COLUMN_PRODUCT_IMAGE_HEIGHT, product.getImageHeight());
+        values.put(COLUMN_PRODUCT_IMAGE_BYTES, product.getImageBytes());
+    }
+
+    // One keyset page of products that have an image, with only the image
+    // columns filled in; see ImageMetadataVerifier
+    List<Product> getProductImagesAfter(int afterId, int limit) {
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = null;
+        Cursor cursor = db.query(TABLE_PRODUCTS,
+                ProductRowMapper.IMAGE_PROJECTION,
+                COLUMN_PRODUCT_ID + " > ? AND IFNULL(" + COLUMN_PRODUCT_IMAGE + ", '') != ''",
+                new String[]{String.valueOf(afterId)},
+                null, null,
+                COLUMN_PRODUCT_ID + " ASC",
+                String.valueOf(limit));
+        try {
+            return new ProductRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
 
+    // Writes verified image metadata in one transaction. A row whose image was
+    // replaced since it was read is left alone. Only the metadata columns
+    // change, so the caches are dropped rather than patched.
+    void saveImageMetadata(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        int rows = 0;
+        db.beginTransaction();
         try {
-            cursor = db.query(TABLE_PRODUCTS,
-                    null,
-                    COLUMN_PRODUCT_NAME + " LIKE ?",
-                    new String[]{"%" + searchText + "%"},
-                    null, null,
-                    COLUMN_PRODUCT_ID + " DESC");
+            for (Product product : products) {
+                ContentValues values = new ContentValues();
+                putImageMetadata(values, product);
+                rows += db.update(TABLE_PRODUCTS, values,
+                        COLUMN_PRODUCT_ID + "=? AND " + COLUMN_PRODUCT_IMAGE + "=?",
+                        new String[]{String.valueOf(product.getId()), product.getImage()});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (rows == 0) {
+            return;
+        }
+        catalogCache.invalidate();
+        productLookupCache.invalidateAll();
+        invalidationTracker.notifyChanged(TABLE_PRODUCTS);
+    }
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    Product product = new Product();
-                    product.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_ID)));
-                    product.setName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_NAME)));
-                    product.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_DESCRIPTION)));
-                    product.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_PRICE)));
+    public List<Product> searchProducts(String searchText) {
+        return searchProducts(searchText, DEFAULT_SEARCH_LIMIT);
+    }
 
-                    String imagePath = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PRODUCT_IMAGE));
-                    product.setImage(imagePath != null ? imagePath : "");
+    // Prefix search over product name and description through products_fts,
+    // best BM25 match first. Name hits weigh twice as much as description hits.
+    // Matches are scored from the index alone; only the best `limit` products
+    // are then read from the products table.
+    public List<Product> searchProducts(String searchText, int limit) {
+        String matchQuery = ProductSearch.buildMatchQuery(searchText);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
 
-                    productList.add(product);
-                } while (cursor.moveToNext());
+        SQLiteDatabase db = this.getReadableDatabase();
+        ProductSearch.TopMatches matches = new ProductSearch.TopMatches(limit);
+        Cursor cursor = db.rawQuery(CatalogSchema.SEARCH_MATCHES_SQL, new String[]{matchQuery});
+        try {
+            int idIndex = cursor.getColumnIndexOrThrow(ProductSearch.COLUMN_DOCID);
+            int rankIndex = cursor.getColumnIndexOrThrow(ProductSearch.COLUMN_RANK_INFO);
+            while (cursor.moveToNext()) {
+                matches.offer(cursor.getInt(idIndex), ProductSearch.bm25(cursor.getBlob(rankIndex)));
             }
         } finally {
-            if (cursor != null) {
-                cursor.close();
+            cursor.close();
+        }
+
+        int[] ids = matches.rankedIds();
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String[] idArgs = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            idArgs[i] = String.valueOf(ids[i]);
+        }
+        cursor = db.query(TABLE_PRODUCTS,
+                ProductRowMapper.FULL_PROJECTION,
+                CatalogSchema.productIdIn(ids.length), idArgs,
+                null, null, null);
+        try {
+            return ProductSearch.inRankOrder(ids, new ProductRowMapper(cursor).mapAll(cursor));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // ==================== IMAGE REFERENCES ====================
+
+    // Every image path still in use: product images with a reference count,
+    // plus the thumbnails saved with cart lines (a cart may outlive its product).
+    // Whatever the image store holds outside this set is garbage.
+    public Set<String> getReferencedImagePaths() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Set<String> paths = new HashSet<>();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_REF_PATH + " FROM " + TABLE_IMAGE_REFS
+                + " UNION SELECT " + COLUMN_CART_IMAGE + " FROM " + TABLE_CART_ITEMS
+                + " WHERE " + COLUMN_CART_IMAGE + " IS NOT NULL", null);
+        try {
+            while (cursor.moveToNext()) {
+                paths.add(cursor.getString(0));
             }
+        } finally {
+            cursor.close();
         }
+        return paths;
+    }
 
-        return productList;
+    // ==================== CART METHODS ====================
+
+    // The whole cart in the order products were added; see CartStore
+    public List<CartItem> getCartItems() {
+        List<CartItem> cartList = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_CART_ITEMS, null, null, null, null, null,
+                COLUMN_CART_ADDED_AT + " ASC");
+        try {
+            int productIdIndex = cursor.getColumnIndexOrThrow(COLUMN_CART_PRODUCT_ID);
+            int nameIndex = cursor.getColumnIndexOrThrow(COLUMN_CART_NAME);
+            int priceIndex = cursor.getColumnIndexOrThrow(COLUMN_CART_UNIT_PRICE);
+            int imageIndex = cursor.getColumnIndexOrThrow(COLUMN_CART_IMAGE);
+            int qtyIndex = cursor.getColumnIndexOrThrow(COLUMN_CART_QTY);
+            int addedAtIndex = cursor.getColumnIndexOrThrow(COLUMN_CART_ADDED_AT);
+            while (cursor.moveToNext()) {
+                CartItem item = new CartItem();
+                item.setProductId(cursor.getInt(productIdIndex));
+                item.setName(cursor.getString(nameIndex));
+                item.setUnitPrice(cursor.getDouble(priceIndex));
+                item.setImagePath(cursor.getString(imageIndex));
+                item.setQuantity(cursor.getInt(qtyIndex));
+                item.setAddedAt(cursor.getLong(addedAtIndex));
+                cartList.add(item);
+            }
+        } finally {
+            cursor.close();
+        }
+        return cartList;
+    }
+
+    // Writes a batch of cart changes in one transaction: the current state
+    // of every changed line, and the product ids that left the cart
+    public void saveCartChanges(Collection<CartItem> changed, Collection<Integer> removedProductIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (CartItem item : changed) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_CART_PRODUCT_ID, item.getProductId());
+                values.put(COLUMN_CART_NAME, item.getName());
+                values.put(COLUMN_CART_UNIT_PRICE, item.getUnitPrice());
+                values.put(COLUMN_CART_IMAGE, item.getImagePath());
+                values.put(COLUMN_CART_QTY, item.getQuantity());
+                values.put(COLUMN_CART_ADDED_AT, item.getAddedAt());
+                db.insertWithOnConflict(TABLE_CART_ITEMS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (Integer productId : removedProductIds) {
+                db.delete(TABLE_CART_ITEMS, COLUMN_CART_PRODUCT_ID + " = ?",
+                        new String[]{String.valueOf(productId)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyChanged(TABLE_CART_ITEMS);
     }
 
     // ==================== ORDER METHODS ✅ ====================
 
-    // Get current date time
-    private String getCurrentDateTime() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        return sdf.format(new Date());
+    static void bindOrderItem(SQLiteStatement statement, long orderId, OrderItem item) {
+        statement.clearBindings();
+        statement.bindLong(1, orderId);
+        statement.bindLong(2, item.getProductId());
+        if (item.getName() != null) {
+            statement.bindString(3, item.getName());
+        }
+        statement.bindDouble(4, item.getUnitPrice());
+        statement.bindLong(5, item.getQuantity());
     }
 
-    // Add Order
-    public long addOrder(String phone, String address, String products, double total) {
+    // Add Order together with its line items in one transaction
+    public long addOrder(String phone, String address, List<OrderItem> items, double total) {
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
 
         values.put(COLUMN_ORDER_PHONE, phone);
         values.put(COLUMN_ORDER_ADDRESS, address);
-        values.put(COLUMN_ORDER_PRODUCTS, products);
         values.put(COLUMN_ORDER_TOTAL, total);
-        values.put(COLUMN_ORDER_DATE, getCurrentDateTime());
+        values.put(COLUMN_ORDER_DATE_MS, System.currentTimeMillis());
         values.put(COLUMN_ORDER_STATUS, "Pending");
 
-        long id = db.insert(TABLE_ORDERS, null, values);
+        long id;
+        db.beginTransaction();
+        try {
+            id = db.insert(TABLE_ORDERS, null, values);
+            if (id == -1) {
+                return -1;
+            }
+
+            SQLiteStatement insertItem = db.compileStatement(CatalogSchema.INSERT_ORDER_ITEM_SQL);
+            try {
+                for (OrderItem item : items) {
+                    bindOrderItem(insertItem, id, item);
+                    insertItem.executeInsert();
+                }
+            } finally {
+                insertItem.close();
+            }
+            applyToSalesRollups(db, id, 1, true);
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyChanged(ORDER_TABLES);
         return id;
     }
 
+    // Get the line items of one order (idx_order_items_order lookup)
+    public List<OrderItem> getOrderItems(int orderId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_ORDER_ITEMS,
+                null,
+                COLUMN_ITEM_ORDER_ID + "=?",
+                new String[]{String.valueOf(orderId)},
+                null, null,
+                COLUMN_ITEM_ID + " ASC");
+
+        try {
+            return new OrderItemRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Units sold and revenue per product, best sellers first. Cancelled
+    // orders are excluded through the join on the orders primary key, the
+    // same way the rollup triggers exclude them.
+    public List<ProductSales> getProductSales(int limit) {
+        List<ProductSales> salesList = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT i." + COLUMN_ITEM_PRODUCT_ID
+                + ", MAX(i." + COLUMN_ITEM_NAME + ")"
+                + ", SUM(i." + COLUMN_ITEM_QTY + ")"
+                + ", SUM(i." + COLUMN_ITEM_QTY + " * i." + COLUMN_ITEM_UNIT_PRICE + ") AS revenue"
+                + " FROM " + TABLE_ORDER_ITEMS + " i"
+                + " JOIN " + TABLE_ORDERS + " o ON o." + COLUMN_ORDER_ID + " = i." + COLUMN_ITEM_ORDER_ID
+                + " WHERE " + SQL_ORDER_NOT_CANCELLED
+                + " GROUP BY i." + COLUMN_ITEM_PRODUCT_ID
+                + " ORDER BY revenue DESC"
+                + " LIMIT " + limit;
+
+        Cursor cursor = db.rawQuery(query, null);
+        try {
+            while (cursor.moveToNext()) {
+                salesList.add(new ProductSales(cursor.getInt(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getDouble(3)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return salesList;
+    }
+
     // Get All Orders
     public List<Order> getAllOrders() {
-        List<Order> orderList = new ArrayList<>();
         String selectQuery = "SELECT * FROM " + TABLE_ORDERS + " ORDER BY " + COLUMN_ORDER_ID + " DESC";
 
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(selectQuery, null);
 
-        if (cursor.moveToFirst()) {
-            do {
-                Order order = new Order();
-                order.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ORDER_ID)));
-                order.setPhoneNumber(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ORDER_PHONE)));
-                order.setAddress(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ORDER_ADDRESS)));
-                order.setProducts(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ORDER_PRODUCTS)));
-                order.setTotalPrice(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_ORDER_TOTAL)));
-                order.setOrderDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ORDER_DATE)));
-                order.setStatus(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ORDER_STATUS)));
-
-                orderList.add(order);
-            } while (cursor.moveToNext());
+        try {
+            return new OrderRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
         }
+    }
+
+    // Get Orders of one customer, newest first (idx_orders_phone_ms)
+    public List<Order> getOrdersByPhone(String phone) {
+        return queryOrders(COLUMN_ORDER_PHONE + " = ?", new String[]{phone},
+                COLUMN_ORDER_DATE_MS + " DESC", null);
+    }
+
+    // Orders placed in [fromMillis, toMillis), newest first, at most limit.
+    // A range scan on idx_orders_date_ms, e.g. today's orders or the last 30 days.
+    public List<Order> getOrdersBetween(long fromMillis, long toMillis, int limit) {
+        return queryOrders(COLUMN_ORDER_DATE_MS + " >= ? AND " + COLUMN_ORDER_DATE_MS + " < ?",
+                new String[]{String.valueOf(fromMillis), String.valueOf(toMillis)},
+                COLUMN_ORDER_DATE_MS + " DESC", String.valueOf(limit));
+    }
+
+    // Get Orders with one status, newest first (idx_orders_status)
+    public List<Order> getOrdersByStatus(String status) {
+        return queryOrders(COLUMN_ORDER_STATUS + " = ?", new String[]{status},
+                COLUMN_ORDER_ID + " DESC", null);
+    }
 
-        cursor.close();
-        return orderList;
+    private List<Order> queryOrders(String selection, String[] selectionArgs, String orderBy, String limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_ORDERS, null, selection, selectionArgs, null, null, orderBy, limit);
+
+        try {
+            return new OrderRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
     }
 
-    // Update Order Status
-    public void updateOrderStatus(int orderId, String status) {
+    // Update Order Status. Cancelling an order takes it out of the sales
+    // rollups and un-cancelling puts it back, in the same transaction.
+    public boolean updateOrderStatus(int orderId, String status) {
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(COLUMN_ORDER_STATUS, status);
+        int rows;
 
-        db.update(TABLE_ORDERS, values, COLUMN_ORDER_ID + " = ?",
-                new String[]{String.valueOf(orderId)});
+        db.beginTransaction();
+        try {
+            String oldStatus = DatabaseUtils.stringForQuery(db, "SELECT IFNULL(" + COLUMN_ORDER_STATUS + ", '') FROM "
+                    + TABLE_ORDERS + " WHERE " + COLUMN_ORDER_ID + " = ?", new String[]{String.valueOf(orderId)});
+            boolean wasCounted = !STATUS_CANCELLED.equals(oldStatus);
+            boolean nowCounted = !STATUS_CANCELLED.equals(status);
+
+            if (wasCounted && !nowCounted) {
+                applyToSalesRollups(db, orderId, -1, true);
+            }
+            rows = db.update(TABLE_ORDERS, values, COLUMN_ORDER_ID + " = ?",
+                    new String[]{String.valueOf(orderId)});
+            if (!wasCounted && nowCounted) {
+                applyToSalesRollups(db, orderId, 1, true);
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLiteDoneException e) {
+            // No such order
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyChanged(ORDER_TABLES);
+        return rows > 0;
     }
 
     // Delete Order
-    public void deleteOrder(int orderId) {
+    public boolean deleteOrder(int orderId) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_ORDERS, COLUMN_ORDER_ID + " = ?",
-                new String[]{String.valueOf(orderId)});
+        int rows;
+        db.beginTransaction();
+        try {
+            applyToSalesRollups(db, orderId, -1, true);
+            rows = db.delete(TABLE_ORDERS, COLUMN_ORDER_ID + " = ?",
+                    new String[]{String.valueOf(orderId)});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyChanged(ORDER_TABLES);
+        return rows > 0;
     }
 
-    // Get Order Count
-    public int getOrderCount() {
+    // ==================== SALES ROLLUPS ====================
+
+    // Adds (sign 1) or removes (sign -1) one order's share of the rollups.
+    // Reads the order as it is now, so call it after inserting or before
+    // deleting. Does nothing for cancelled orders or orders without a time.
+    private void applyToSalesRollups(SQLiteDatabase db, long orderId, int sign, boolean includeDaily) {
+        String[] orderArgs = {String.valueOf(orderId)};
+        long day;
+        double total;
+        Cursor order = db.rawQuery("SELECT o." + COLUMN_ORDER_DATE_MS + ", o." + COLUMN_ORDER_TOTAL
+                + " FROM " + TABLE_ORDERS + " o WHERE o." + COLUMN_ORDER_ID + " = ? AND "
+                + SQL_ORDER_COUNTS_FOR_SALES, orderArgs);
+        try {
+            if (!order.moveToFirst()) {
+                return;
+            }
+            day = localDay(order.getLong(0));
+            total = order.getDouble(1);
+        } finally {
+            order.close();
+        }
+        if (includeDaily) {
+            db.execSQL("INSERT OR IGNORE INTO " + TABLE_DAILY_SALES + "(" + COLUMN_SALES_DAY + ") VALUES (?)",
+                    new Object[]{day});
+            db.execSQL("UPDATE " + TABLE_DAILY_SALES + " SET "
+                            + COLUMN_SALES_ORDER_COUNT + " = " + COLUMN_SALES_ORDER_COUNT + " + ?, "
+                            + COLUMN_SALES_REVENUE + " = " + COLUMN_SALES_REVENUE + " + ?"
+                            + " WHERE " + COLUMN_SALES_DAY + " = ?",
+                    new Object[]{sign, sign * total, day});
+        }
+
+        SQLiteStatement createRow = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_PRODUCT_SALES
+                + "(" + COLUMN_SALES_DAY + ", " + COLUMN_SALES_PRODUCT_ID + ") VALUES (?, ?)");
+        SQLiteStatement addToRow = db.compileStatement("UPDATE " + TABLE_PRODUCT_SALES + " SET "
+                + COLUMN_SALES_QTY + " = " + COLUMN_SALES_QTY + " + ?, "
+                + COLUMN_SALES_REVENUE + " = " + COLUMN_SALES_REVENUE + " + ?, "
+                + COLUMN_SALES_NAME + " = IFNULL(?, " + COLUMN_SALES_NAME + ")"
+                + " WHERE " + COLUMN_SALES_DAY + " = ? AND " + COLUMN_SALES_PRODUCT_ID + " = ?");
+        Cursor items = db.rawQuery("SELECT " + COLUMN_ITEM_PRODUCT_ID + ", " + COLUMN_ITEM_NAME + ", "
+                + COLUMN_ITEM_QTY + ", " + COLUMN_ITEM_UNIT_PRICE + " FROM " + TABLE_ORDER_ITEMS
+                + " WHERE " + COLUMN_ITEM_ORDER_ID + " = ?", orderArgs);
+        try {
+            while (items.moveToNext()) {
+                long productId = items.getLong(0);
+                int qty = items.getInt(2);
+
+                createRow.bindLong(1, day);
+                createRow.bindLong(2, productId);
+                createRow.executeInsert();
+
+                addToRow.clearBindings();
+                addToRow.bindLong(1, (long) sign * qty);
+                addToRow.bindDouble(2, sign * qty * items.getDouble(3));
+                if (!items.isNull(1)) {
+                    addToRow.bindString(3, items.getString(1));
+                }
+                addToRow.bindLong(4, day);
+                addToRow.bindLong(5, productId);
+                addToRow.executeUpdateDelete();
+            }
+        } finally {
+            items.close();
+            createRow.close();
+            addToRow.close();
+        }
+    }
+
+    // Recompute both rollups from orders and order_items; caller holds the transaction
+    private void fillSalesRollups(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_DAILY_SALES + ";");
+        db.execSQL("DELETE FROM " + TABLE_PRODUCT_SALES + ";");
+        db.execSQL("INSERT INTO " + TABLE_DAILY_SALES + "("
+                + COLUMN_SALES_DAY + ", " + COLUMN_SALES_ORDER_COUNT + ", " + COLUMN_SALES_REVENUE + ")"
+                + " SELECT " + SQL_ORDER_DAY + ", COUNT(*), IFNULL(SUM(o." + COLUMN_ORDER_TOTAL + "), 0)"
+                + " FROM " + TABLE_ORDERS + " o WHERE " + SQL_ORDER_COUNTS_FOR_SALES
+                + " GROUP BY 1;");
+        db.execSQL("INSERT INTO " + TABLE_PRODUCT_SALES + "("
+                + COLUMN_SALES_DAY + ", " + COLUMN_SALES_PRODUCT_ID + ", " + COLUMN_SALES_NAME + ", "
+                + COLUMN_SALES_QTY + ", " + COLUMN_SALES_REVENUE + ")"
+                + " SELECT " + SQL_ORDER_DAY + ", i." + COLUMN_ITEM_PRODUCT_ID + ", MAX(i." + COLUMN_ITEM_NAME + ")"
+                + ", SUM(i." + COLUMN_ITEM_QTY + "), SUM(i." + COLUMN_ITEM_QTY + " * i." + COLUMN_ITEM_UNIT_PRICE + ")"
+                + " FROM " + TABLE_ORDER_ITEMS + " i"
+                + " JOIN " + TABLE_ORDERS + " o ON o." + COLUMN_ORDER_ID + " = i." + COLUMN_ITEM_ORDER_ID
+                + " WHERE " + SQL_ORDER_COUNTS_FOR_SALES
+                + " GROUP BY 1, 2;");
+    }
+
+    // Consistency repair: recompute the rollups from scratch
+    public void rebuildSalesRollups() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            fillSalesRollups(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        invalidationTracker.notifyChanged(TABLE_DAILY_SALES, TABLE_PRODUCT_SALES);
+    }
+
+    private static long localDay(long millis) {
+        return (millis + TimeZone.getDefault().getOffset(millis)) / DAY_MILLIS;
+    }
+
+    private static long localDayStart(long day) {
+        long utcMidnight = day * DAY_MILLIS;
+        return utcMidnight - TimeZone.getDefault().getOffset(utcMidnight);
+    }
+
+    // Revenue and order count per local day for [fromMillis, toMillis),
+    // oldest first. Days without sales are not returned. A primary key
+    // range read: a 90-day chart touches at most 90 rows.
+    public List<DailySales> getDailySales(long fromMillis, long toMillis) {
+        List<DailySales> salesList = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_ORDERS, null);
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_SALES_DAY + ", " + COLUMN_SALES_ORDER_COUNT + ", "
+                        + COLUMN_SALES_REVENUE + " FROM " + TABLE_DAILY_SALES
+                        + " WHERE " + COLUMN_SALES_DAY + " >= ? AND " + COLUMN_SALES_DAY + " <= ?"
+                        + " AND " + COLUMN_SALES_ORDER_COUNT + " > 0"
+                        + " ORDER BY " + COLUMN_SALES_DAY,
+                new String[]{String.valueOf(localDay(fromMillis)), String.valueOf(localDay(toMillis - 1))});
+        try {
+            while (cursor.moveToNext()) {
+                long day = cursor.getLong(0);
+                salesList.add(new DailySales(day, localDayStart(day), cursor.getInt(1), cursor.getDouble(2)));
+            }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        return count;
+        return salesList;
+    }
+
+    // Best-selling products over the local days of [fromMillis, toMillis),
+    // by revenue. Reads only the product_sales rows of those days.
+    public List<ProductSales> getTopProducts(long fromMillis, long toMillis, int limit) {
+        List<ProductSales> salesList = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_SALES_PRODUCT_ID + ", MAX(" + COLUMN_SALES_NAME + ")"
+                        + ", SUM(" + COLUMN_SALES_QTY + ") AS total_qty, SUM(" + COLUMN_SALES_REVENUE + ") AS total_revenue"
+                        + " FROM " + TABLE_PRODUCT_SALES
+                        + " WHERE " + COLUMN_SALES_DAY + " >= ? AND " + COLUMN_SALES_DAY + " <= ?"
+                        + " GROUP BY " + COLUMN_SALES_PRODUCT_ID
+                        + " HAVING total_qty > 0"
+                        + " ORDER BY total_revenue DESC"
+                        + " LIMIT " + limit,
+                new String[]{String.valueOf(localDay(fromMillis)), String.valueOf(localDay(toMillis - 1))});
+        try {
+            while (cursor.moveToNext()) {
+                salesList.add(new ProductSales(cursor.getInt(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getDouble(3)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return salesList;
+    }
+
+    // ==================== ORDER STATS ====================
+    // Single-row reads from order_stats; the cost does not grow with order history
+
+    // Get Order Count
+    public int getOrderCount() {
+        return getOrderCountByStatus(STATS_ALL);
     }
 
     // Get Pending Orders Count
     public int getPendingOrdersCount() {
+        return getOrderCountByStatus("Pending");
+    }
+
+    public int getOrderCountByStatus(String status) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_STATS_COUNT + " FROM " + TABLE_ORDER_STATS
+                + " WHERE " + COLUMN_STATS_STATUS + " = ?", new String[]{status});
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Sum of total_price over every order, cancelled ones included
+    public double getTotalRevenue() {
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_ORDERS + " WHERE " + COLUMN_ORDER_STATUS + " = 'Pending'", null);
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_STATS_REVENUE + " FROM " + TABLE_ORDER_STATS
+                + " WHERE " + COLUMN_STATS_STATUS + " = ?", new String[]{STATS_ALL});
+        try {
+            return cursor.moveToFirst() ? cursor.getDouble(0) : 0;
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        return count;
+    }
+
+    // Consistency check: recount order_stats from scratch. Returns true if
+    // the stored counters had drifted from the orders table.
+    public boolean rebuildOrderStats() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean drifted;
+        db.beginTransaction();
+        try {
+            Map<String, String> before = readOrderStats(db);
+            fillOrderStats(db);
+            Map<String, String> after = readOrderStats(db);
+            db.setTransactionSuccessful();
+
+            drifted = !before.equals(after);
+            if (drifted) {
+                Log.w(TAG, "order_stats drifted, rebuilt: " + before + " -> " + after);
+            }
+        } finally {
+            db.endTransaction();
+        }
+        if (drifted) {
+            invalidationTracker.notifyChanged(TABLE_ORDER_STATS);
+        }
+        return drifted;
+    }
+
+    // status -> "count/revenue", ignoring statuses with no orders left
+    private Map<String, String> readOrderStats(SQLiteDatabase db) {
+        Map<String, String> stats = new HashMap<>();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_STATS_STATUS + ", " + COLUMN_STATS_COUNT + ", "
+                + COLUMN_STATS_REVENUE + " FROM " + TABLE_ORDER_STATS
+                + " WHERE " + COLUMN_STATS_COUNT + " != 0", null);
+        try {
+            while (cursor.moveToNext()) {
+                stats.put(cursor.getString(0), cursor.getInt(1) + "/" + Math.round(cursor.getDouble(2) * 100));
+            }
+        } finally {
+            cursor.close();
+        }
+        return stats;
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.android.userdetails.db;
+
+import android.util.LruCache;
+
+/**
+ * Size-bounded LRU cache in front of a single-row lookup such as
+ * getProductById or getUserByEmail.
+ *
+ * Values are copied going in and coming out, so a screen that edits the
+ * object it was handed never changes the cached row. Only found rows are
+ * cached; a missing key always goes back to the database.
+ *
+ * A lookup that misses calls {@link #beginRead()} before its query and hands
+ * the token to {@link #put}. If any entry was invalidated in between, the
+ * row read may already be stale and is not cached.
+ */
+public class EntityCache<K, V> {
+
+    interface Copier<V> {
+        V copy(V value);
+    }
+
+    private final LruCache<K, V> cache;
+    private final Copier<V> copier;
+    private long invalidations = 0;
+
+    EntityCache(int maxEntries, Copier<V> copier) {
+        this.cache = new LruCache<>(maxEntries);
+        this.copier = copier;
+    }
+
+    V get(K key) {
+        V value = cache.get(key);
+        return value != null ? copier.copy(value) : null;
+    }
+
+    synchronized long beginRead() {
+        return invalidations;
+    }
+
+    synchronized void put(long readToken, K key, V value) {
+        if (value != null && readToken == invalidations) {
+            cache.put(key, copier.copy(value));
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        invalidations++;
+        cache.remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        invalidations++;
+        cache.evictAll();
+    }
+
+    // ==================== STATS ====================
+
+    public int getMaxSize() {
+        return cache.maxSize();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public int getHitCount() {
+        return cache.hitCount();
+    }
+
+    public int getMissCount() {
+        return cache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return cache.evictionCount();
+    }
+
+    public double getHitRatio() {
+        int lookups = cache.hitCount() + cache.missCount();
+        return lookups != 0 ? (double) cache.hitCount() / lookups : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache[size=" + getSize() + "/" + getMaxSize()
+                + ",hits=" + getHitCount() + ",misses=" + getMissCount()
+                + ",evictions=" + getEvictionCount()
+                + ",hitRate=" + Math.round(getHitRatio() * 100) + "%]";
+    }
+}
@@ -0,0 +1,88 @@
+package com.android.userdetails.db;
+
+import android.graphics.BitmapFactory;
+
+import com.android.userdetails.model.Product;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the image columns of the products table against the files on disk.
+ *
+ * Product rows record whether their list image can be loaded, and the pixel
+ * size and byte length of the full image. Lists bind from those columns
+ * alone, so nothing stats a file on the main thread. They are written when an
+ * image is ingested and corrected here, in the background, for files that
+ * were removed or replaced since, and for rows saved before the columns
+ * existed.
+ *
+ * Products are read in keyset pages by id, so memory stays flat no matter how
+ * large the catalog is. Only rows whose metadata changed are written back.
+ */
+class ImageMetadataVerifier {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final DatabaseHelper databaseHelper;
+
+    ImageMetadataVerifier(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // Returns the number of products whose metadata was corrected
+    int verifyAll() {
+        int corrected = 0;
+        int afterId = 0;
+        while (true) {
+            List<Product> page = databaseHelper.getProductImagesAfter(afterId, BATCH_SIZE);
+            List<Product> changed = new ArrayList<>();
+            for (Product product : page) {
+                if (verify(product)) {
+                    changed.add(product);
+                }
+            }
+            databaseHelper.saveImageMetadata(changed);
+            corrected += changed.size();
+
+            if (page.size() < BATCH_SIZE) {
+                return corrected;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // Updates the product from the disk; true if anything changed
+    static boolean verify(Product product) {
+        boolean available = new File(product.getListImage()).isFile();
+        File full = new File(product.getImage());
+        long bytes = full.isFile() ? full.length() : 0;
+
+        int width = product.getImageWidth();
+        int height = product.getImageHeight();
+        if (bytes == 0) {
+            width = 0;
+            height = 0;
+        } else if (bytes != product.getImageBytes() || width <= 0 || height <= 0) {
+            // New or replaced file: read its size from the header only
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(full.getAbsolutePath(), bounds);
+            width = Math.max(bounds.outWidth, 0);
+            height = Math.max(bounds.outHeight, 0);
+        }
+
+        if (Boolean.valueOf(available).equals(product.getImageAvailable())
+                && bytes == product.getImageBytes()
+                && width == product.getImageWidth()
+                && height == product.getImageHeight()) {
+            return false;
+        }
+        product.setImageAvailable(available);
+        product.setImageBytes(bytes);
+        product.setImageWidth(width);
+        product.setImageHeight(height);
+        return true;
+    }
+}
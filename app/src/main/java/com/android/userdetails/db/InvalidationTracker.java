@@ -0,0 +1,81 @@
+package com.android.userdetails.db;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records which tables DatabaseHelper's writes touch.
+ *
+ * Every table has a version that goes up after each committed write to it.
+ * A reader remembers the versions its result was built from and only needs
+ * to query again once they move. Observers registered for a set of tables
+ * are told right after a write to any of them, on the writing thread.
+ */
+public class InvalidationTracker {
+
+    public interface Observer {
+        void onTablesChanged(Set<String> tables);
+    }
+
+    private static final class Registration {
+        final Set<String> tables;
+        final Observer observer;
+
+        Registration(Set<String> tables, Observer observer) {
+            this.tables = tables;
+            this.observer = observer;
+        }
+    }
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private final CopyOnWriteArrayList<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    public void addObserver(Collection<String> tables, Observer observer) {
+        registrations.add(new Registration(new HashSet<>(tables), observer));
+    }
+
+    public void removeObserver(Observer observer) {
+        for (Registration registration : registrations) {
+            if (registration.observer == observer) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    // Sum of the tables' versions; changes whenever any of them is written
+    public synchronized long getVersion(Collection<String> tables) {
+        long version = 0;
+        for (String table : tables) {
+            Long tableVersion = versions.get(table);
+            if (tableVersion != null) {
+                version += tableVersion;
+            }
+        }
+        return version;
+    }
+
+    // Call after the write has committed, never inside its transaction:
+    // observers query again straight away and must see the new rows
+    void notifyChanged(String... tables) {
+        Set<String> changed = new HashSet<>(Arrays.asList(tables));
+        synchronized (this) {
+            for (String table : changed) {
+                Long version = versions.get(table);
+                versions.put(table, version != null ? version + 1 : 1);
+            }
+        }
+        for (Registration registration : registrations) {
+            for (String table : changed) {
+                if (registration.tables.contains(table)) {
+                    registration.observer.onTablesChanged(changed);
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.android.userdetails.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * A query whose result is kept current while someone is watching it.
+ *
+ * While the LiveData has an active observer (a screen at least STARTED) it
+ * listens to the InvalidationTracker and re-runs the query in the
+ * background after any write to one of its tables. The new result is
+ * delivered on the main thread. While inactive it neither listens nor
+ * queries; when it becomes active again it re-runs only if one of its
+ * tables changed in the meantime.
+ */
+public class LiveQuery<T> extends LiveData<T> implements InvalidationTracker.Observer {
+
+    private static final String TAG = "LiveQuery";
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final InvalidationTracker tracker;
+    private final List<String> tables;
+    private final Callable<T> query;
+
+    // Main thread only
+    private long loadedVersion = -1;
+    private boolean running = false;
+
+    private final Runnable refresh = this::refreshIfStale;
+
+    LiveQuery(InvalidationTracker tracker, Callable<T> query, String... tables) {
+        this.tracker = tracker;
+        this.query = query;
+        this.tables = Arrays.asList(tables);
+    }
+
+    @Override
+    protected void onActive() {
+        tracker.addObserver(tables, this);
+        refreshIfStale();
+    }
+
+    @Override
+    protected void onInactive() {
+        tracker.removeObserver(this);
+        MAIN_HANDLER.removeCallbacks(refresh);
+    }
+
+    // From the writing thread; a burst of writes queues a single refresh
+    @Override
+    public void onTablesChanged(Set<String> changed) {
+        MAIN_HANDLER.removeCallbacks(refresh);
+        MAIN_HANDLER.post(refresh);
+    }
+
+    private void refreshIfStale() {
+        if (running || !hasActiveObservers()) {
+            // A running query checks again when it finishes
+            return;
+        }
+        long version = tracker.getVersion(tables);
+        if (version == loadedVersion) {
+            return;
+        }
+
+        running = true;
+        DataRepository.runInBackground(() -> {
+            T result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Query on " + tables + " failed", e);
+                MAIN_HANDLER.post(() -> running = false);
+                return;
+            }
+            MAIN_HANDLER.post(() -> {
+                running = false;
+                loadedVersion = version;
+                setValue(result);
+                // Tables written while the query ran
+                refreshIfStale();
+            });
+        });
+    }
+}
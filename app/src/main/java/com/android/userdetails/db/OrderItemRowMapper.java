@@ -0,0 +1,37 @@
+package com.android.userdetails.db;
+
+import android.database.Cursor;
+
+import com.android.userdetails.data.CatalogSchema;
+import com.android.userdetails.model.OrderItem;
+
+final class OrderItemRowMapper extends RowMapper<OrderItem> {
+
+    private final int idIndex;
+    private final int orderIdIndex;
+    private final int productIdIndex;
+    private final int nameIndex;
+    private final int unitPriceIndex;
+    private final int qtyIndex;
+
+    OrderItemRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(CatalogSchema.COLUMN_ITEM_ID);
+        orderIdIndex = cursor.getColumnIndexOrThrow(CatalogSchema.COLUMN_ITEM_ORDER_ID);
+        productIdIndex = cursor.getColumnIndexOrThrow(CatalogSchema.COLUMN_ITEM_PRODUCT_ID);
+        nameIndex = cursor.getColumnIndexOrThrow(CatalogSchema.COLUMN_ITEM_NAME);
+        unitPriceIndex = cursor.getColumnIndexOrThrow(CatalogSchema.COLUMN_ITEM_UNIT_PRICE);
+        qtyIndex = cursor.getColumnIndexOrThrow(CatalogSchema.COLUMN_ITEM_QTY);
+    }
+
+    @Override
+    OrderItem map(Cursor cursor) {
+        OrderItem item = new OrderItem();
+        item.setId(cursor.getInt(idIndex));
+        item.setOrderId(cursor.getInt(orderIdIndex));
+        item.setProductId(cursor.getInt(productIdIndex));
+        item.setName(cursor.getString(nameIndex));
+        item.setUnitPrice(cursor.getDouble(unitPriceIndex));
+        item.setQuantity(cursor.getInt(qtyIndex));
+        return item;
+    }
+}
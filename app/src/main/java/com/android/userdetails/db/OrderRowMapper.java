@@ -0,0 +1,56 @@
+package com.android.userdetails.db;
+
+import android.database.Cursor;
+
+import com.android.userdetails.model.Order;
+
+import java.text.DateFormat;
+import java.util.Date;
+
+final class OrderRowMapper extends RowMapper<Order> {
+
+    private final int idIndex;
+    private final int phoneIndex;
+    private final int addressIndex;
+    private final int productsIndex;
+    private final int totalIndex;
+    private final int dateIndex;
+    private final int dateMillisIndex;
+    // Order times are stored as epoch millis and shown in the user's locale
+    private final DateFormat displayFormat =
+            DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT);
+    private final int statusIndex;
+
+    OrderRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ORDER_ID);
+        phoneIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_PHONE);
+        addressIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_ADDRESS);
+        productsIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_PRODUCTS);
+        totalIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_TOTAL);
+        dateIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_DATE);
+        dateMillisIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_DATE_MS);
+        statusIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ORDER_STATUS);
+    }
+
+    @Override
+    Order map(Cursor cursor) {
+        Order order = new Order();
+        order.setId(cursor.getInt(idIndex));
+        order.setPhoneNumber(getStringOrNull(cursor, phoneIndex));
+        order.setAddress(getStringOrNull(cursor, addressIndex));
+        order.setProducts(getStringOrNull(cursor, productsIndex));
+        if (totalIndex >= 0) {
+            order.setTotalPrice(cursor.getDouble(totalIndex));
+        }
+        if (dateMillisIndex >= 0 && !cursor.isNull(dateMillisIndex)) {
+            long millis = cursor.getLong(dateMillisIndex);
+            order.setOrderDateMillis(millis);
+            order.setOrderDate(displayFormat.format(new Date(millis)));
+        } else {
+            // Legacy text that could not be converted
+            order.setOrderDate(getStringOrNull(cursor, dateIndex));
+        }
+        order.setStatus(getStringOrNull(cursor, statusIndex));
+        return order;
+    }
+}
@@ -0,0 +1,128 @@
+package com.android.userdetails.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+
+import com.android.userdetails.model.Product;
+
+import java.util.Iterator;
+
+/**
+ * Inserts a stream of products through one compiled INSERT statement,
+ * committing every batchSize rows. Per-row inserts each pay for their own
+ * transaction and journal sync; here that cost is paid once per batch.
+ */
+public class ProductBulkInserter {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public interface ProgressListener {
+        // Called after each committed batch, on the inserting thread
+        void onProgress(int inserted, double rowsPerSecond);
+    }
+
+    interface BatchHook {
+        // Runs inside each batch transaction just before it commits, so
+        // anything written here lands atomically with the batch
+        void beforeCommit(SQLiteDatabase db, int inserted);
+    }
+
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO " + DatabaseHelper.TABLE_PRODUCTS + " ("
+            + DatabaseHelper.COLUMN_PRODUCT_NAME + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_DESCRIPTION + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_PRICE + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE_LIST + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE_DETAIL + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE_OK + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE_WIDTH + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE_HEIGHT + ", "
+            + DatabaseHelper.COLUMN_PRODUCT_IMAGE_BYTES + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DatabaseHelper databaseHelper;
+    private final int batchSize;
+    private final ProgressListener listener;
+    private final BatchHook batchHook;
+
+    public ProductBulkInserter(DatabaseHelper databaseHelper, int batchSize, ProgressListener listener) {
+        this(databaseHelper, batchSize, listener, null);
+    }
+
+    ProductBulkInserter(DatabaseHelper databaseHelper, int batchSize, ProgressListener listener,
+                        BatchHook batchHook) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.databaseHelper = databaseHelper;
+        this.batchSize = batchSize;
+        this.listener = listener;
+        this.batchHook = batchHook;
+    }
+
+    // Returns the number of products inserted
+    public int insertAll(Iterator<Product> products) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(INSERT_PRODUCT_SQL);
+        long startTime = SystemClock.elapsedRealtime();
+        int inserted = 0;
+
+        try {
+            while (products.hasNext()) {
+                int inBatch = 0;
+                db.beginTransaction();
+                try {
+                    while (inBatch < batchSize && products.hasNext()) {
+                        bindProduct(insert, products.next());
+                        insert.executeInsert();
+                        inBatch++;
+                    }
+                    if (batchHook != null) {
+                        batchHook.beforeCommit(db, inserted + inBatch);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                inserted += inBatch;
+                // The batch went in behind the catalog cache
+                databaseHelper.getCatalogCache().invalidate();
+                databaseHelper.getInvalidationTracker().notifyChanged(DatabaseHelper.TABLE_PRODUCTS);
+
+                if (listener != null) {
+                    long elapsed = Math.max(1, SystemClock.elapsedRealtime() - startTime);
+                    listener.onProgress(inserted, inserted * 1000.0 / elapsed);
+                }
+            }
+        } finally {
+            insert.close();
+        }
+
+        return inserted;
+    }
+
+    private static void bindProduct(SQLiteStatement statement, Product product) {
+        statement.clearBindings();
+        statement.bindString(1, product.getName());
+        if (product.getDescription() != null) {
+            statement.bindString(2, product.getDescription());
+        }
+        statement.bindDouble(3, product.getPrice());
+        if (product.getImage() != null) {
+            statement.bindString(4, product.getImage());
+        }
+        // Copies and metadata of an already ingested image; unset for feeds
+        if (product.getListImagePath() != null) {
+            statement.bindString(5, product.getListImagePath());
+        }
+        if (product.getDetailImagePath() != null) {
+            statement.bindString(6, product.getDetailImagePath());
+        }
+        if (product.getImageAvailable() != null) {
+            statement.bindLong(7, product.getImageAvailable() ? 1 : 0);
+        }
+        statement.bindLong(8, product.getImageWidth());
+        statement.bindLong(9, product.getImageHeight());
+        statement.bindLong(10, product.getImageBytes());
+    }
+}
@@ -0,0 +1,354 @@
+package com.android.userdetails.db;
+
+import com.android.userdetails.model.Product;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of the product catalog, kept up to date by DatabaseHelper's
+ * product writes.
+ *
+ * The cache holds a contiguous run of the id DESC list, from {@code ceilingId}
+ * down to {@code floorId}: every product with an id in that range is cached,
+ * so any page inside the run can be answered without a query. A run starts
+ * at the newest product with the first page; pages read from the database
+ * extend it downwards, and once a short page is seen the rest of the table
+ * is cached.
+ *
+ * The cache keeps its own copies of the products it is given and hands out
+ * fresh copies on every hit, so nothing it trims is ever seen by a caller.
+ *
+ * Every change bumps {@link #getVersion()}. Screens remember the version
+ * they loaded and skip reloading while it is unchanged.
+ *
+ * Memory use is estimated from string lengths. Over budget, descriptions are
+ * dropped first, since list pages do not show them; only then are whole
+ * products dropped. Both start at the top of the run, the end furthest from
+ * a reader scrolling down, so the run keeps extending below the page just
+ * read while its top is lowered. A product missing its description counts
+ * as a miss for callers that need one and is read from the database again.
+ */
+public class ProductCatalogCache {
+
+    // Rough fixed cost of a Product, its entry and the map node, in bytes
+    private static final int ENTRY_OVERHEAD = 96;
+
+    // ceilingId of a run that still starts at the newest product
+    private static final int NO_CEILING = Integer.MAX_VALUE;
+
+    private static final class Entry {
+        final Product product;
+        boolean hasDescription = true;
+
+        Entry(Product product) {
+            this.product = product;
+        }
+    }
+
+    private final long maxBytes;
+    private final TreeMap<Integer, Entry> entries = new TreeMap<>();
+
+    private boolean runLoaded = false;     // entries hold every id in [floorId, ceilingId]
+    private boolean complete = false;      // ... and there is nothing below floorId
+    private int floorId = 0;
+    private int ceilingId = NO_CEILING;
+    private int productCount = -1;         // -1 until counted
+    private long estimatedBytes = 0;
+
+    private long version = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public ProductCatalogCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // ==================== READS ====================
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // The full list, or null if it is not all cached
+    synchronized List<Product> getAll() {
+        if (!complete || ceilingId != NO_CEILING || !hasAllFields(entries.values(), true)) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return copyDescending(entries.descendingMap().values(), entries.size());
+    }
+
+    // One keyset page, or null if the cache cannot answer it exactly
+    synchronized List<Product> getPage(int afterId, int limit, boolean withDescription) {
+        // The rows right below afterId must lie inside the run
+        boolean startsInRun = afterId > 0 ? afterId - 1 <= ceilingId : ceilingId == NO_CEILING;
+        if (!runLoaded || !startsInRun) {
+            missCount++;
+            return null;
+        }
+        NavigableMap<Integer, Entry> below = afterId > 0
+                ? entries.headMap(afterId, false).descendingMap()
+                : entries.descendingMap();
+
+        List<Entry> page = new ArrayList<>(limit);
+        for (Entry entry : below.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(entry);
+        }
+
+        // A short page is only the real answer if nothing lies below the floor
+        if ((page.size() < limit && !complete) || !hasAllFields(page, withDescription)) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return copyDescending(page, page.size());
+    }
+
+    // Product count, or -1 if unknown
+    synchronized int getCount() {
+        if (productCount < 0) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return productCount;
+    }
+
+    // ==================== FILLS FROM QUERIES ====================
+    // Each fill passes the version read before its query ran. If a write
+    // landed in the meantime the result may be stale and is not kept.
+
+    synchronized void putAll(long readVersion, List<Product> products) {
+        if (readVersion != version) {
+            return;
+        }
+        clearEntries();
+        for (Product product : products) {
+            putEntry(product, true);
+        }
+        runLoaded = true;
+        complete = true;
+        floorId = 0;
+        ceilingId = NO_CEILING;
+        productCount = products.size();
+        trimToBudget();
+    }
+
+    synchronized void putPage(long readVersion, int afterId, int limit, boolean withDescription,
+                              List<Product> page) {
+        if (readVersion != version) {
+            return;
+        }
+        boolean firstPage = afterId <= 0;
+        if (firstPage) {
+            clearEntries();
+            runLoaded = true;
+            complete = false;
+            ceilingId = NO_CEILING;
+        } else if (!runLoaded || complete || afterId != floorId) {
+            // Would leave a gap; only refresh products that are already cached
+            for (Product product : page) {
+                if (entries.containsKey(product.getId())) {
+                    putEntry(product, withDescription);
+                }
+            }
+            trimToBudget();
+            return;
+        }
+
+        for (Product product : page) {
+            putEntry(product, withDescription);
+        }
+        if (!page.isEmpty()) {
+            floorId = page.get(page.size() - 1).getId();
+        }
+        if (page.size() < limit) {
+            complete = true;
+            floorId = 0;
+            productCount = entries.size();
+        }
+        trimToBudget();
+    }
+
+    synchronized void putCount(long readVersion, int count) {
+        if (readVersion == version) {
+            productCount = count;
+        }
+    }
+
+    // ==================== WRITE-THROUGH ====================
+
+    // AUTOINCREMENT ids only grow, so a new product always lands at the top
+    // of the list: inside the run while the run still starts there
+    synchronized void onInserted(Product product) {
+        version++;
+        if (runLoaded && ceilingId == NO_CEILING) {
+            putEntry(product, true);
+            trimToBudget();
+        }
+        if (productCount >= 0) {
+            productCount++;
+        }
+    }
+
+    synchronized void onUpdated(Product product) {
+        version++;
+        if (entries.containsKey(product.getId())) {
+            putEntry(product, true);
+            trimToBudget();
+        }
+    }
+
+    synchronized void onDeleted(int id) {
+        version++;
+        removeEntry(id);
+        if (productCount > 0) {
+            productCount--;
+        }
+    }
+
+    // For writes that bypass the row-level hooks, e.g. bulk inserts
+    public synchronized void invalidate() {
+        version++;
+        clearEntries();
+        runLoaded = false;
+        complete = false;
+        floorId = 0;
+        ceilingId = NO_CEILING;
+        productCount = -1;
+    }
+
+    // ==================== STATS ====================
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public synchronized int getCachedProductCount() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hitCount + missCount;
+        int hitPercent = lookups != 0 ? (int) (100 * hitCount / lookups) : 0;
+        return "ProductCatalogCache[products=" + entries.size() + ",bytes=" + estimatedBytes
+                + "/" + maxBytes + ",hits=" + hitCount + ",misses=" + missCount
+                + ",hitRate=" + hitPercent + "%,version=" + version + "]";
+    }
+
+    // ==================== INTERNALS ====================
+
+    // Stores a copy: the caller keeps its object, and trimming later never
+    // changes a product that was handed out. A summary row carries no
+    // description; keep the one already cached, if any.
+    private void putEntry(Product source, boolean hasDescription) {
+        Product product = ProductRowMapper.copyOf(source);
+        Entry old = entries.get(product.getId());
+        if (!hasDescription && old != null && old.hasDescription) {
+            product.setDescription(old.product.getDescription());
+            hasDescription = true;
+        }
+        removeEntry(product.getId());
+        Entry entry = new Entry(product);
+        entry.hasDescription = hasDescription;
+        entries.put(product.getId(), entry);
+        estimatedBytes += sizeOf(entry);
+    }
+
+    private void removeEntry(int id) {
+        Entry old = entries.remove(id);
+        if (old != null) {
+            estimatedBytes -= sizeOf(old);
+        }
+    }
+
+    private void clearEntries() {
+        entries.clear();
+        estimatedBytes = 0;
+    }
+
+    // The newest products are the furthest from a reader scrolling down, so
+    // they give up memory first
+    private void trimToBudget() {
+        if (estimatedBytes <= maxBytes) {
+            return;
+        }
+        for (Entry entry : entries.descendingMap().values()) {
+            if (estimatedBytes <= maxBytes) {
+                return;
+            }
+            if (entry.hasDescription) {
+                estimatedBytes -= sizeOf(entry);
+                entry.hasDescription = false;
+                entry.product.setDescription(null);
+                estimatedBytes += sizeOf(entry);
+            }
+        }
+
+        // Still over: lower the top of the run. The floor stays where the
+        // last page ended, so the next page read below it extends the run.
+        Iterator<Entry> top = entries.descendingMap().values().iterator();
+        while (estimatedBytes > maxBytes && top.hasNext()) {
+            estimatedBytes -= sizeOf(top.next());
+            top.remove();
+        }
+        if (entries.isEmpty()) {
+            runLoaded = false;
+            complete = false;
+            floorId = 0;
+            ceilingId = NO_CEILING;
+        } else {
+            ceilingId = entries.lastKey();
+        }
+    }
+
+    private static long sizeOf(Entry entry) {
+        Product product = entry.product;
+        return ENTRY_OVERHEAD
+                + 2L * (length(product.getName())
+                + length(product.getDescription())
+                + length(product.getImage())
+                + length(product.getListImagePath())
+                + length(product.getDetailImagePath()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static boolean hasAllFields(Iterable<Entry> page, boolean withDescription) {
+        for (Entry entry : page) {
+            if (withDescription && !entry.hasDescription) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Callers get their own copies, so editing a product on screen never
+    // changes the cached one behind the database's back
+    private static List<Product> copyDescending(Iterable<Entry> source, int size) {
+        List<Product> copies = new ArrayList<>(size);
+        for (Entry entry : source) {
+            copies.add(ProductRowMapper.copyOf(entry.product));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,114 @@
+package com.android.userdetails.db;
+
+import android.database.Cursor;
+
+import com.android.userdetails.model.Product;
+
+final class ProductRowMapper extends RowMapper<Product> {
+
+    // Everything a product row holds
+    static final String[] FULL_PROJECTION = {
+            DatabaseHelper.COLUMN_PRODUCT_ID,
+            DatabaseHelper.COLUMN_PRODUCT_NAME,
+            DatabaseHelper.COLUMN_PRODUCT_DESCRIPTION,
+            DatabaseHelper.COLUMN_PRODUCT_PRICE,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_LIST,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_DETAIL,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_OK,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_WIDTH,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_HEIGHT,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_BYTES
+    };
+
+    // Enough for a compact list row; skips the long description text. Every
+    // other column is kept, so the catalog cache can merge a summary row over
+    // a full one and only has to carry the description over.
+    static final String[] SUMMARY_PROJECTION = {
+            DatabaseHelper.COLUMN_PRODUCT_ID,
+            DatabaseHelper.COLUMN_PRODUCT_NAME,
+            DatabaseHelper.COLUMN_PRODUCT_PRICE,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_LIST,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_DETAIL,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_OK,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_WIDTH,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_HEIGHT,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_BYTES
+    };
+
+    // The image paths and their metadata, for checking against the disk
+    static final String[] IMAGE_PROJECTION = {
+            DatabaseHelper.COLUMN_PRODUCT_ID,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_LIST,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_DETAIL,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_OK,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_WIDTH,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_HEIGHT,
+            DatabaseHelper.COLUMN_PRODUCT_IMAGE_BYTES
+    };
+
+    private final int idIndex;
+    private final int nameIndex;
+    private final int descriptionIndex;
+    private final int priceIndex;
+    private final int imageIndex;
+    private final int listImageIndex;
+    private final int detailImageIndex;
+    private final int imageOkIndex;
+    private final int imageWidthIndex;
+    private final int imageHeightIndex;
+    private final int imageBytesIndex;
+
+    ProductRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_PRODUCT_ID);
+        nameIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_NAME);
+        descriptionIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_DESCRIPTION);
+        priceIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_PRICE);
+        imageIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE);
+        listImageIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE_LIST);
+        detailImageIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE_DETAIL);
+        imageOkIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE_OK);
+        imageWidthIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE_WIDTH);
+        imageHeightIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE_HEIGHT);
+        imageBytesIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PRODUCT_IMAGE_BYTES);
+    }
+
+    @Override
+    Product map(Cursor cursor) {
+        Product product = new Product();
+        product.setId(cursor.getInt(idIndex));
+        product.setName(getStringOrNull(cursor, nameIndex));
+        product.setDescription(getStringOrNull(cursor, descriptionIndex));
+        if (priceIndex >= 0) {
+            product.setPrice(cursor.getDouble(priceIndex));
+        }
+
+        String imagePath = getStringOrNull(cursor, imageIndex);
+        product.setImage(imagePath != null ? imagePath : "");
+        product.setListImagePath(getStringOrNull(cursor, listImageIndex));
+        product.setDetailImagePath(getStringOrNull(cursor, detailImageIndex));
+        if (imageOkIndex >= 0 && !cursor.isNull(imageOkIndex)) {
+            product.setImageAvailable(cursor.getInt(imageOkIndex) != 0);
+        }
+        if (imageWidthIndex >= 0) {
+            product.setImageWidth(cursor.getInt(imageWidthIndex));
+        }
+        if (imageHeightIndex >= 0) {
+            product.setImageHeight(cursor.getInt(imageHeightIndex));
+        }
+        if (imageBytesIndex >= 0) {
+            product.setImageBytes(cursor.getLong(imageBytesIndex));
+        }
+        return product;
+    }
+
+    static Product copyOf(Product product) {
+        Product copy = new Product(product.getName(), product.getDescription(),
+                product.getPrice(), product.getImage());
+        copy.setId(product.getId());
+        copy.copyImageFrom(product);
+        return copy;
+    }
+}
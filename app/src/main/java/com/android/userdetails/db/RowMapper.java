@@ -0,0 +1,34 @@
+package com.android.userdetails.db;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns cursor rows into model objects. A mapper is built for one cursor and
+ * looks up its column indexes once, so the per-row work is only the typed
+ * getters. Columns missing from the cursor's projection are left unset.
+ */
+abstract class RowMapper<T> {
+
+    abstract T map(Cursor cursor);
+
+    // Maps every remaining row into a list sized for the whole result
+    List<T> mapAll(Cursor cursor) {
+        List<T> list = new ArrayList<>(Math.max(cursor.getCount(), 0));
+        while (cursor.moveToNext()) {
+            list.add(map(cursor));
+        }
+        return list;
+    }
+
+    // Maps the first row, or returns null for an empty result
+    T mapFirst(Cursor cursor) {
+        return cursor.moveToFirst() ? map(cursor) : null;
+    }
+
+    static String getStringOrNull(Cursor cursor, int index) {
+        return index >= 0 ? cursor.getString(index) : null;
+    }
+}
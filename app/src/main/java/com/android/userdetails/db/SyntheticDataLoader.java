@@ -0,0 +1,265 @@
+package com.android.userdetails.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+
+import com.android.userdetails.data.CatalogSchema;
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.image.ImageIngester;
+import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.Product;
+import com.android.userdetails.model.User;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes a SyntheticDataset into the app's own tables, for load testing on
+ * a device: users, then products, then orders with their line items.
+ *
+ * Each kind of row goes through one compiled statement and is committed
+ * every batchSize rows, like ProductBulkInserter (which writes the
+ * products). The product and order triggers (products_fts, image_refs,
+ * order_stats) run as usual. The sales rollups are rebuilt once at the end
+ * instead of per order, so the dashboards are right once load() returns.
+ *
+ * Rows are added to what is already there; users whose email exists are
+ * skipped. Meant for a fresh or test database.
+ */
+public class SyntheticDataLoader {
+
+    public static final int DEFAULT_BATCH_SIZE = 2000;
+
+    public interface ProgressListener {
+        // Called after each committed batch, on the loading thread
+        void onProgress(String table, int written, int total);
+    }
+
+    public static final class Result {
+        public final int users;
+        public final int products;
+        public final int orders;
+        public final long elapsedMillis;
+
+        Result(int users, int products, int orders, long elapsedMillis) {
+            this.users = users;
+            this.products = products;
+            this.orders = orders;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return users + " users, " + products + " products, " + orders + " orders in "
+                    + elapsedMillis / 1000 + " s";
+        }
+    }
+
+    // Where an app-wide load stands; see DataRepository.observeSyntheticLoad
+    public static final class Status {
+        public final boolean running;
+        public final String table;     // table being written, while running
+        public final int written;
+        public final int total;
+        public final Result result;    // once finished; null if the load failed
+
+        private Status(boolean running, String table, int written, int total, Result result) {
+            this.running = running;
+            this.table = table;
+            this.written = written;
+            this.total = total;
+            this.result = result;
+        }
+
+        static Status progress(String table, int written, int total) {
+            return new Status(true, table, written, total, null);
+        }
+
+        static Status finished(Result result) {
+            return new Status(false, null, 0, 0, result);
+        }
+    }
+
+    private static final String INSERT_USER_SQL = "INSERT OR IGNORE INTO " + DatabaseHelper.TABLE_USERS + " ("
+            + DatabaseHelper.COLUMN_NAME + ", " + DatabaseHelper.COLUMN_EMAIL + ", "
+            + DatabaseHelper.COLUMN_PASSWORD + ", " + DatabaseHelper.COLUMN_PHONE + ", "
+            + DatabaseHelper.COLUMN_GENDER + ", " + DatabaseHelper.COLUMN_ADDRESS + ", "
+            + DatabaseHelper.COLUMN_DOB + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ORDER_SQL = "INSERT INTO " + DatabaseHelper.TABLE_ORDERS + " ("
+            + DatabaseHelper.COLUMN_ORDER_PHONE + ", " + DatabaseHelper.COLUMN_ORDER_ADDRESS + ", "
+            + DatabaseHelper.COLUMN_ORDER_TOTAL + ", " + DatabaseHelper.COLUMN_ORDER_DATE_MS + ", "
+            + DatabaseHelper.COLUMN_ORDER_STATUS + ") VALUES (?, ?, ?, ?, ?)";
+
+    // The id AUTOINCREMENT hands out next: past both the highest row and any deleted ones
+    private static final String NEXT_PRODUCT_ID_SQL = "SELECT MAX("
+            + "IFNULL((SELECT seq FROM sqlite_sequence WHERE name = '" + DatabaseHelper.TABLE_PRODUCTS + "'), 0), "
+            + "IFNULL((SELECT MAX(" + DatabaseHelper.COLUMN_PRODUCT_ID + ") FROM " + DatabaseHelper.TABLE_PRODUCTS + "), 0)"
+            + ") + 1";
+
+    private final DatabaseHelper databaseHelper;
+    private final int batchSize;
+    private final ProgressListener listener;
+
+    public SyntheticDataLoader(DatabaseHelper databaseHelper, int batchSize, ProgressListener listener) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.databaseHelper = databaseHelper;
+        this.batchSize = batchSize;
+        this.listener = listener;
+    }
+
+    // imageStubs are shared by the products in turn; an empty list leaves
+    // every product without an image. Blocking; call from a background thread.
+    public Result load(SyntheticDataset dataset, List<ImageIngester.ProductImages> imageStubs) {
+        long startTime = SystemClock.elapsedRealtime();
+
+        int users = insertUsers(dataset);
+
+        int firstProductId = nextProductId();
+        int productCount = dataset.getSpec().getProductCount();
+        ProductBulkInserter.ProgressListener productProgress = listener == null ? null
+                : (inserted, rowsPerSecond) ->
+                        listener.onProgress(DatabaseHelper.TABLE_PRODUCTS, inserted, productCount);
+        int products = databaseHelper.bulkInsertProducts(
+                new ProductIterator(dataset.products(), imageStubs), batchSize, productProgress);
+
+        int orders = insertOrders(dataset, firstProductId);
+        databaseHelper.rebuildSalesRollups();
+        databaseHelper.checkpointWal();
+
+        return new Result(users, products, orders, SystemClock.elapsedRealtime() - startTime);
+    }
+
+    private int insertUsers(SyntheticDataset dataset) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(INSERT_USER_SQL);
+        // Every user has the same password; hash it once
+        String passwordHash = DatabaseHelper.encryptPassword(SyntheticDataset.USER_PASSWORD);
+        int total = dataset.getSpec().getUserCount();
+        Iterator<User> users = dataset.users();
+        int written = 0;
+        int inserted = 0;
+
+        try {
+            while (users.hasNext()) {
+                db.beginTransaction();
+                try {
+                    for (int i = 0; i < batchSize && users.hasNext(); i++) {
+                        User user = users.next();
+                        insert.clearBindings();
+                        insert.bindString(1, user.getName());
+                        insert.bindString(2, user.getEmail());
+                        insert.bindString(3, passwordHash);
+                        insert.bindString(4, user.getPhone());
+                        insert.bindString(5, user.getGender());
+                        insert.bindString(6, user.getAddress());
+                        insert.bindString(7, user.getDateOfBirth());
+                        if (insert.executeInsert() != -1) {
+                            inserted++;
+                        }
+                        written++;
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                if (listener != null) {
+                    listener.onProgress(DatabaseHelper.TABLE_USERS, written, total);
+                }
+            }
+        } finally {
+            insert.close();
+        }
+
+        databaseHelper.getInvalidationTracker().notifyChanged(DatabaseHelper.TABLE_USERS);
+        return inserted;
+    }
+
+    private int nextProductId() {
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(NEXT_PRODUCT_ID_SQL, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int insertOrders(SyntheticDataset dataset, int firstProductId) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        SQLiteStatement insertOrder = db.compileStatement(INSERT_ORDER_SQL);
+        SQLiteStatement insertItem = db.compileStatement(CatalogSchema.INSERT_ORDER_ITEM_SQL);
+        int total = dataset.getSpec().getOrderCount();
+        Iterator<SyntheticDataset.OrderRecord> orders = dataset.orders(firstProductId);
+        int inserted = 0;
+
+        try {
+            while (orders.hasNext()) {
+                db.beginTransaction();
+                try {
+                    for (int i = 0; i < batchSize && orders.hasNext(); i++) {
+                        SyntheticDataset.OrderRecord record = orders.next();
+                        Order order = record.order;
+                        insertOrder.clearBindings();
+                        insertOrder.bindString(1, order.getPhoneNumber());
+                        insertOrder.bindString(2, order.getAddress());
+                        insertOrder.bindDouble(3, order.getTotalPrice());
+                        insertOrder.bindLong(4, order.getOrderDateMillis());
+                        insertOrder.bindString(5, order.getStatus());
+                        long orderId = insertOrder.executeInsert();
+
+                        for (OrderItem item : record.items) {
+                            DatabaseHelper.bindOrderItem(insertItem, orderId, item);
+                            insertItem.executeInsert();
+                        }
+                        inserted++;
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                if (listener != null) {
+                    listener.onProgress(DatabaseHelper.TABLE_ORDERS, inserted, total);
+                }
+            }
+        } finally {
+            insertOrder.close();
+            insertItem.close();
+        }
+
+        // Once, not per batch: the rollups only catch up in load()
+        databaseHelper.getInvalidationTracker().notifyChanged(DatabaseHelper.ORDER_TABLES);
+        return inserted;
+    }
+
+    // Products with their stub image's files and metadata filled in
+    private static final class ProductIterator implements Iterator<Product> {
+
+        private final Iterator<SyntheticDataset.ProductRecord> records;
+        private final List<ImageIngester.ProductImages> imageStubs;
+
+        ProductIterator(Iterator<SyntheticDataset.ProductRecord> records,
+                        List<ImageIngester.ProductImages> imageStubs) {
+            this.records = records;
+            this.imageStubs = imageStubs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return records.hasNext();
+        }
+
+        @Override
+        public Product next() {
+            SyntheticDataset.ProductRecord record = records.next();
+            if (record.imageStub >= 0 && !imageStubs.isEmpty()) {
+                imageStubs.get(record.imageStub % imageStubs.size()).applyTo(record.product);
+            }
+            return record.product;
+        }
+    }
+}
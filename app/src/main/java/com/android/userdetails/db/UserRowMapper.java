@@ -0,0 +1,51 @@
+package com.android.userdetails.db;
+
+import android.database.Cursor;
+
+import com.android.userdetails.model.User;
+
+final class UserRowMapper extends RowMapper<User> {
+
+    private final int idIndex;
+    private final int nameIndex;
+    private final int emailIndex;
+    private final int passwordIndex;
+    private final int phoneIndex;
+    private final int genderIndex;
+    private final int addressIndex;
+    private final int dobIndex;
+
+    UserRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID);
+        nameIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_NAME);
+        emailIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_EMAIL);
+        passwordIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PASSWORD);
+        phoneIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PHONE);
+        genderIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_GENDER);
+        addressIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_ADDRESS);
+        dobIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_DOB);
+    }
+
+    @Override
+    User map(Cursor cursor) {
+        User user = new User();
+        user.setId(cursor.getInt(idIndex));
+        user.setName(getStringOrNull(cursor, nameIndex));
+        user.setEmail(getStringOrNull(cursor, emailIndex));
+        user.setPassword(getStringOrNull(cursor, passwordIndex));
+        user.setPhone(getStringOrNull(cursor, phoneIndex));
+        user.setGender(getStringOrNull(cursor, genderIndex));
+        user.setAddress(getStringOrNull(cursor, addressIndex));
+        user.setDateOfBirth(getStringOrNull(cursor, dobIndex));
+        return user;
+    }
+
+    static User copyOf(User user) {
+        User copy = new User(user.getName(), user.getEmail(), user.getPassword(),
+                user.getPhone(), user.getGender());
+        copy.setId(user.getId());
+        copy.setAddress(user.getAddress());
+        copy.setDateOfBirth(user.getDateOfBirth());
+        return copy;
+    }
+}
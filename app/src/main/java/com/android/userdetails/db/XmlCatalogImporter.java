@@ -0,0 +1,287 @@
+package com.android.userdetails.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import android.util.Xml;
+
+import com.android.userdetails.model.Product;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams a supplier product feed into the products table.
+ *
+ * The feed is read with XmlPullParser one product element at a time, so
+ * memory stays flat no matter how large the file is. Expected shape:
+ *
+ * <pre>
+ * &lt;catalog&gt;
+ *     &lt;product&gt;
+ *         &lt;name&gt;Cotton Shirt&lt;/name&gt;
+ *         &lt;description&gt;...&lt;/description&gt;
+ *         &lt;price&gt;850.00&lt;/price&gt;
+ *         &lt;image&gt;/path/or/url&lt;/image&gt;
+ *     &lt;/product&gt;
+ * &lt;/catalog&gt;
+ * </pre>
+ *
+ * Fields may also be given as attributes of the product element. Products
+ * without a name or a readable price are skipped.
+ *
+ * The number of product elements consumed is saved in import_checkpoints
+ * inside each batch transaction. If the import is interrupted, running it
+ * again with the same source key skips the records that already committed.
+ */
+class XmlCatalogImporter {
+
+    private static final String TAG = "XmlCatalogImporter";
+
+    private static final String TAG_PRODUCT = "product";
+    private static final String TAG_ITEM = "item";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final String FIELD_PRICE = "price";
+    private static final String FIELD_IMAGE = "image";
+
+    private final DatabaseHelper databaseHelper;
+
+    XmlCatalogImporter(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    // Returns the number of products inserted by this run
+    int importCatalog(InputStream in, String sourceKey, int batchSize,
+                      ProductBulkInserter.ProgressListener listener)
+            throws IOException, XmlPullParserException {
+        int alreadyCommitted = readCheckpoint(sourceKey);
+        if (alreadyCommitted > 0) {
+            Log.i(TAG, "Resuming " + sourceKey + " after " + alreadyCommitted + " records");
+        }
+
+        XmlPullParser parser = Xml.newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+        parser.setInput(in, null);
+
+        ProductIterator products = new ProductIterator(parser, alreadyCommitted);
+        ProductBulkInserter inserter = new ProductBulkInserter(databaseHelper, batchSize, listener,
+                (db, inserted) -> writeCheckpoint(db, sourceKey, products.getConsumed()));
+
+        int inserted;
+        try {
+            inserted = inserter.insertAll(products);
+        } catch (ParseFailure e) {
+            // Batches before the failure are committed and checkpointed
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw (XmlPullParserException) e.getCause();
+        }
+
+        clearCheckpoint(sourceKey);
+        return inserted;
+    }
+
+    private int readCheckpoint(String sourceKey) {
+        SQLiteDatabase db = databaseHelper.getReadableDatabase();
+        Cursor cursor = db.query(DatabaseHelper.TABLE_IMPORT_CHECKPOINTS,
+                new String[]{DatabaseHelper.COLUMN_CHECKPOINT_RECORDS},
+                DatabaseHelper.COLUMN_CHECKPOINT_SOURCE + "=?",
+                new String[]{sourceKey},
+                null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void writeCheckpoint(SQLiteDatabase db, String sourceKey, int recordsCommitted) {
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.COLUMN_CHECKPOINT_SOURCE, sourceKey);
+        values.put(DatabaseHelper.COLUMN_CHECKPOINT_RECORDS, recordsCommitted);
+        values.put(DatabaseHelper.COLUMN_CHECKPOINT_UPDATED, System.currentTimeMillis());
+        db.insertWithOnConflict(DatabaseHelper.TABLE_IMPORT_CHECKPOINTS, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private void clearCheckpoint(String sourceKey) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        db.delete(DatabaseHelper.TABLE_IMPORT_CHECKPOINTS,
+                DatabaseHelper.COLUMN_CHECKPOINT_SOURCE + "=?",
+                new String[]{sourceKey});
+    }
+
+    // Carries parser errors out of Iterator methods, which cannot throw checked exceptions
+    private static class ParseFailure extends RuntimeException {
+        ParseFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Pulls one product element per call. Counts every product element seen,
+     * valid or not, so the checkpoint lines up with the feed on resume.
+     */
+    private static class ProductIterator implements Iterator<Product> {
+
+        private final XmlPullParser parser;
+        private final int skip;
+
+        private int seen = 0;      // product elements read so far
+        private int consumed = 0;  // records that are safe to checkpoint
+        private Product next;
+        private boolean finished = false;
+
+        ProductIterator(XmlPullParser parser, int skip) {
+            this.parser = parser;
+            this.skip = skip;
+        }
+
+        int getConsumed() {
+            return consumed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = readNextProduct();
+                } catch (IOException | XmlPullParserException e) {
+                    throw new ParseFailure(e);
+                }
+                if (next == null) {
+                    finished = true;
+                    consumed = seen;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Product next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Product product = next;
+            next = null;
+            consumed = seen;
+            return product;
+        }
+
+        private Product readNextProduct() throws IOException, XmlPullParserException {
+            int event = parser.getEventType();
+            while (event != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG && isProductTag(parser.getName())) {
+                    seen++;
+                    if (seen <= skip) {
+                        skipElement();
+                    } else {
+                        Product product = readProduct();
+                        if (product != null) {
+                            return product;
+                        }
+                    }
+                }
+                event = parser.next();
+            }
+            return null;
+        }
+
+        private static boolean isProductTag(String name) {
+            return TAG_PRODUCT.equalsIgnoreCase(name) || TAG_ITEM.equalsIgnoreCase(name);
+        }
+
+        // Reads the current product element through its end tag
+        private Product readProduct() throws IOException, XmlPullParserException {
+            String name = attribute(FIELD_NAME);
+            if (name == null) {
+                name = attribute(FIELD_TITLE);
+            }
+            String description = attribute(FIELD_DESCRIPTION);
+            String price = attribute(FIELD_PRICE);
+            String image = attribute(FIELD_IMAGE);
+
+            int depth = parser.getDepth();
+            int event = parser.next();
+            while (!(event == XmlPullParser.END_TAG && parser.getDepth() == depth)) {
+                if (event == XmlPullParser.START_TAG && parser.getDepth() == depth + 1) {
+                    String field = parser.getName().toLowerCase(Locale.ROOT);
+                    String text = readText();
+                    switch (field) {
+                        case FIELD_NAME:
+                        case FIELD_TITLE:
+                            name = text;
+                            break;
+                        case FIELD_DESCRIPTION:
+                            description = text;
+                            break;
+                        case FIELD_PRICE:
+                            price = text;
+                            break;
+                        case FIELD_IMAGE:
+                            image = text;
+                            break;
+                    }
+                    // readText leaves the parser on the field's end tag
+                }
+                event = parser.next();
+            }
+
+            if (name == null || name.trim().isEmpty() || price == null) {
+                return null;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(price.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            return new Product(name.trim(), description != null ? description.trim() : "",
+                    value, image != null ? image.trim() : "");
+        }
+
+        private String attribute(String name) {
+            return parser.getAttributeValue(null, name);
+        }
+
+        // Text content of the current element; nested markup is skipped
+        private String readText() throws IOException, XmlPullParserException {
+            StringBuilder text = new StringBuilder();
+            int depth = parser.getDepth();
+            int event = parser.next();
+            while (!(event == XmlPullParser.END_TAG && parser.getDepth() == depth)) {
+                if (event == XmlPullParser.TEXT && parser.getDepth() == depth) {
+                    text.append(parser.getText());
+                }
+                event = parser.next();
+            }
+            return text.toString();
+        }
+
+        private void skipElement() throws IOException, XmlPullParserException {
+            int depth = 1;
+            while (depth != 0) {
+                switch (parser.next()) {
+                    case XmlPullParser.START_TAG:
+                        depth++;
+                        break;
+                    case XmlPullParser.END_TAG:
+                        depth--;
+                        break;
+                    case XmlPullParser.END_DOCUMENT:
+                        return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.android.userdetails.image;
+
+/**
+ * Sizes and quality used by ImageIngester. Sizes are the longest side in
+ * pixels; a source smaller than a size is never scaled up.
+ */
+public class ImageIngestConfig {
+
+    private final int maxImageSize;
+    private final int detailImageSize;
+    private final int listImageSize;
+    private final int webpQuality;
+
+    public ImageIngestConfig(int maxImageSize, int detailImageSize, int listImageSize,
+                             int webpQuality) {
+        this.maxImageSize = maxImageSize;
+        this.detailImageSize = detailImageSize;
+        this.listImageSize = listImageSize;
+        this.webpQuality = webpQuality;
+    }
+
+    // Full image good for zooming on a tablet, a detail copy for a phone
+    // screen, and a list thumbnail for a 100dp row at xxxhdpi
+    public static ImageIngestConfig defaults() {
+        return new ImageIngestConfig(1600, 1080, 400, 80);
+    }
+
+    public int getMaxImageSize() {
+        return maxImageSize;
+    }
+
+    public int getDetailImageSize() {
+        return detailImageSize;
+    }
+
+    public int getListImageSize() {
+        return listImageSize;
+    }
+
+    // 0-100, passed to Bitmap.compress
+    public int getWebpQuality() {
+        return webpQuality;
+    }
+}
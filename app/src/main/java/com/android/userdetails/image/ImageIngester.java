@@ -0,0 +1,356 @@
+package com.android.userdetails.image;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import com.android.userdetails.model.Product;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Turns a picked gallery image into the files a product shows, kept in the
+ * ProductImageStore under the source's content hash. A source that was
+ * ingested before is not decoded again.
+ *
+ * The source is decoded with the largest power-of-two subsample that still
+ * covers the maximum size, so a 12 MP photo is never held in memory at full
+ * resolution. EXIF orientation is applied, the result is scaled to the
+ * configured sizes and each copy is written as WebP: the full image plus a
+ * detail-size and a list-size thumbnail.
+ *
+ * Work runs on one background thread, one image at a time, since a single
+ * decode can take tens of megabytes. Results come back on the main thread.
+ */
+public class ImageIngester {
+
+    private static final String TAG = "ImageIngester";
+
+    // Side of a stub image: a typical photo, so it is scaled down like one
+    private static final int STUB_IMAGE_SIZE = 1200;
+
+    public interface Callback {
+        // images is null if the source could not be read or written
+        void onIngested(ProductImages images);
+    }
+
+    // Paths of the files written for one source image, with the size of the full one
+    public static final class ProductImages {
+        public final String imagePath;
+        public final String detailImagePath;
+        public final String listImagePath;
+        public final int width;
+        public final int height;
+        public final long bytes;
+
+        ProductImages(String imagePath, String detailImagePath, String listImagePath,
+                      int width, int height, long bytes) {
+            this.imagePath = imagePath;
+            this.detailImagePath = detailImagePath;
+            this.listImagePath = listImagePath;
+            this.width = width;
+            this.height = height;
+            this.bytes = bytes;
+        }
+
+        // Records the files and their metadata on the product, ready to save
+        public void applyTo(Product product) {
+            product.setImage(imagePath);
+            product.setDetailImagePath(detailImagePath);
+            product.setListImagePath(listImagePath);
+            product.setImageAvailable(true);
+            product.setImageWidth(width);
+            product.setImageHeight(height);
+            product.setImageBytes(bytes);
+        }
+    }
+
+    private static volatile ImageIngester instance;
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final Context context;
+    private final ProductImageStore store;
+    private final ImageIngestConfig config;
+    private final ExecutorService executor;
+
+    public static ImageIngester getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ImageIngester.class) {
+                if (instance == null) {
+                    instance = new ImageIngester(context.getApplicationContext(),
+                            ProductImageStore.getInstance(context), ImageIngestConfig.defaults());
+                }
+            }
+        }
+        return instance;
+    }
+
+    ImageIngester(Context context, ProductImageStore store, ImageIngestConfig config) {
+        this.context = context;
+        this.store = store;
+        this.config = config;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "image-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Processes the image in the background and reports back on the main thread
+    public Future<?> ingest(Uri source, Callback callback) {
+        return executor.submit(() -> {
+            ProductImages images;
+            try {
+                images = ingestNow(source);
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                Log.e(TAG, "Could not ingest " + source, e);
+                images = null;
+            }
+            ProductImages result = images;
+            MAIN_HANDLER.post(() -> callback.onIngested(result));
+        });
+    }
+
+    // Blocking; call from a background thread
+    public ProductImages ingestNow(Uri source) throws IOException {
+        String hash;
+        try (InputStream in = open(source)) {
+            hash = ProductImageStore.hashOf(in);
+        }
+        ProductImages existing = store.find(hash);
+        if (existing != null) {
+            return existing;
+        }
+
+        store.ensureDirectory();
+        File fullFile = store.fullFile(hash);
+        File detailFile = store.detailFile(hash);
+        File listFile = store.listFile(hash);
+
+        Bitmap full = decodeOriented(source);
+        int width = full.getWidth();
+        int height = full.getHeight();
+        Bitmap detail = null;
+        Bitmap list = null;
+
+        try {
+            detail = scaleToFit(full, config.getDetailImageSize());
+            list = scaleToFit(detail, config.getListImageSize());
+            writeWebp(full, fullFile);
+            writeWebp(detail, detailFile);
+            writeWebp(list, listFile);
+        } catch (IOException | RuntimeException e) {
+            // Leave nothing half-written behind
+            fullFile.delete();
+            detailFile.delete();
+            listFile.delete();
+            throw e;
+        } finally {
+            // The scaling steps hand back their input when it already fits
+            full.recycle();
+            if (detail != null && detail != full) {
+                detail.recycle();
+            }
+            if (list != null && list != detail && list != full) {
+                list.recycle();
+            }
+        }
+        return new ProductImages(fullFile.getAbsolutePath(), detailFile.getAbsolutePath(),
+                listFile.getAbsolutePath(), width, height, fullFile.length());
+    }
+
+    // ==================== STUB IMAGES ====================
+
+    // Plain coloured images for generated products (see SyntheticDataLoader),
+    // ingested like picked ones. Stub i comes out the same every time, so a
+    // second call finds the files already in the store. Blocking.
+    public List<ProductImages> ingestStubImages(int count) throws IOException {
+        List<ProductImages> stubs = new ArrayList<>(count);
+        File source = new File(context.getCacheDir(), "stub_image.png");
+        try {
+            for (int i = 0; i < count; i++) {
+                Bitmap bitmap = drawStubImage(i, count);
+                try (OutputStream out = new FileOutputStream(source)) {
+                    if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                        throw new IOException("Could not encode stub image " + i);
+                    }
+                } finally {
+                    bitmap.recycle();
+                }
+                stubs.add(ingestNow(Uri.fromFile(source)));
+            }
+        } finally {
+            source.delete();
+        }
+        return stubs;
+    }
+
+    // A disc on a background, both in the index's own hue
+    private static Bitmap drawStubImage(int index, int count) {
+        Bitmap bitmap = Bitmap.createBitmap(STUB_IMAGE_SIZE, STUB_IMAGE_SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float hue = 360f * index / count;
+        canvas.drawColor(Color.HSVToColor(new float[]{hue, 0.3f, 0.95f}));
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(Color.HSVToColor(new float[]{hue, 0.7f, 0.6f}));
+        canvas.drawCircle(STUB_IMAGE_SIZE / 2f, STUB_IMAGE_SIZE / 2f, STUB_IMAGE_SIZE / 3f, paint);
+        return bitmap;
+    }
+
+    // ==================== DECODING ====================
+
+    // Decodes the source upright, with its longest side at most the maximum size
+    private Bitmap decodeOriented(Uri source) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a readable image: " + source);
+        }
+
+        int maxSize = config.getMaxImageSize();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSizeFor(bounds.outWidth, bounds.outHeight, maxSize);
+        Bitmap decoded;
+        try (InputStream in = open(source)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Could not decode " + source);
+        }
+
+        Matrix matrix = new Matrix();
+        int longest = Math.max(decoded.getWidth(), decoded.getHeight());
+        if (longest > maxSize) {
+            float scale = (float) maxSize / longest;
+            matrix.postScale(scale, scale);
+        }
+        applyOrientation(matrix, readOrientation(source));
+        if (matrix.isIdentity()) {
+            return decoded;
+        }
+        Bitmap oriented = Bitmap.createBitmap(decoded, 0, 0,
+                decoded.getWidth(), decoded.getHeight(), matrix, true);
+        if (oriented != decoded) {
+            decoded.recycle();
+        }
+        return oriented;
+    }
+
+    // Largest power of two that keeps the longest side at or above maxSize;
+    // the exact size is reached by scaling afterwards
+    static int sampleSizeFor(int width, int height, int maxSize) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private int readOrientation(Uri source) {
+        try (InputStream in = open(source)) {
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // No usable EXIF, e.g. a PNG: take the pixels as they are
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static void applyOrientation(Matrix matrix, int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+        }
+    }
+
+    private InputStream open(Uri source) throws IOException {
+        InputStream in = context.getContentResolver().openInputStream(source);
+        if (in == null) {
+            throw new IOException("Could not open " + source);
+        }
+        return in;
+    }
+
+    // ==================== ENCODING ====================
+
+    // Same bitmap if it already fits
+    private static Bitmap scaleToFit(Bitmap source, int maxSize) {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        if (longest <= maxSize) {
+            return source;
+        }
+        float scale = (float) maxSize / longest;
+        return Bitmap.createScaledBitmap(source,
+                Math.max(1, Math.round(source.getWidth() * scale)),
+                Math.max(1, Math.round(source.getHeight() * scale)),
+                true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void writeWebp(Bitmap bitmap, File file) throws IOException {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+
+        // Written under a temporary name so a crash never leaves a truncated image
+        File partial = new File(file.getPath() + ProductImageStore.PARTIAL_SUFFIX);
+        try (OutputStream out = new FileOutputStream(partial)) {
+            if (!bitmap.compress(format, config.getWebpQuality(), out)) {
+                throw new IOException("Could not encode " + file);
+            }
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete();
+            throw new IOException("Could not write " + file);
+        }
+    }
+}
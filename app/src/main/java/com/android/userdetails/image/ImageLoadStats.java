@@ -0,0 +1,99 @@
+package com.android.userdetails.image;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts where Glide served each finished load from: the memory cache, the
+ * disk cache, or a decode of the source file. Preloaded rows show up as a
+ * source decode first and as memory hits when they scroll into view.
+ *
+ * Registered for every request by ProductGlideModule.
+ */
+public class ImageLoadStats implements RequestListener<Object> {
+
+    private static final ImageLoadStats INSTANCE = new ImageLoadStats();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong sourceLoads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public static ImageLoadStats getInstance() {
+        return INSTANCE;
+    }
+
+    private ImageLoadStats() {
+    }
+
+    @Override
+    public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                @NonNull Target<Object> target, boolean isFirstResource) {
+        failures.incrementAndGet();
+        // Let the request show its error drawable as usual
+        return false;
+    }
+
+    @Override
+    public boolean onResourceReady(@NonNull Object resource, @NonNull Object model,
+                                   Target<Object> target, @NonNull DataSource dataSource,
+                                   boolean isFirstResource) {
+        switch (dataSource) {
+            case MEMORY_CACHE:
+                memoryHits.incrementAndGet();
+                break;
+            case RESOURCE_DISK_CACHE:
+            case DATA_DISK_CACHE:
+                diskHits.incrementAndGet();
+                break;
+            default:
+                sourceLoads.incrementAndGet();
+                break;
+        }
+        return false;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getSourceLoads() {
+        return sourceLoads.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    // Share of successful loads that needed no decode of the source
+    public double getHitRatio() {
+        long hits = memoryHits.get() + diskHits.get();
+        long loads = hits + sourceLoads.get();
+        return loads != 0 ? (double) hits / loads : 0;
+    }
+
+    public void reset() {
+        memoryHits.set(0);
+        diskHits.set(0);
+        sourceLoads.set(0);
+        failures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "ImageLoadStats[memory=" + getMemoryHits() + ",disk=" + getDiskHits()
+                + ",source=" + getSourceLoads() + ",failed=" + getFailures()
+                + ",hitRate=" + Math.round(getHitRatio() * 100) + "%]";
+    }
+}
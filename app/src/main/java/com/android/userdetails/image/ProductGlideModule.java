@@ -0,0 +1,54 @@
+package com.android.userdetails.image;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+
+/**
+ * Glide settings for the product screens.
+ *
+ * Product images are local WebP files at most 400 px on the list side (see
+ * ImageIngestConfig), so the memory cache is sized in screens of list rows:
+ * enough to fling back over what was just seen plus the rows the list
+ * preloader decodes ahead. The disk cache keeps the decoded, row-sized
+ * versions; the source files are already on disk, so it never needs to be
+ * as large as Glide's 250 MB default.
+ */
+@GlideModule
+public final class ProductGlideModule extends AppGlideModule {
+
+    private static final float MEMORY_CACHE_SCREENS = 3;
+    private static final float BITMAP_POOL_SCREENS = 2;
+    private static final long DISK_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "glide_product_images";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES));
+        builder.setLogLevel(Log.ERROR);
+
+        // Counts where every load was served from; see ImageLoadStats
+        builder.addGlobalRequestListener(ImageLoadStats.getInstance());
+    }
+
+    // Everything is configured here; skip scanning the manifest for v3 modules
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
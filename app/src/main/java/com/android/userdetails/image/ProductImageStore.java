@@ -0,0 +1,187 @@
+package com.android.userdetails.image;
+
+import android.content.Context;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The files under files/product_images, named by the SHA-256 of the picked
+ * source image. Picking the same photo again finds the files already there
+ * instead of writing a copy.
+ *
+ * One source gives three files, {@code <hash>.webp}, {@code <hash>_detail.webp}
+ * and {@code <hash>_list.webp}; the full image owns the two thumbnails. How
+ * many products use each full image is counted by triggers in the
+ * image_refs table. {@link #collectGarbage} deletes every file whose owner
+ * is no longer referenced, including files from before this store.
+ */
+public class ProductImageStore {
+
+    private static final String TAG = "ProductImageStore";
+
+    static final String IMAGE_DIR = "product_images";
+    private static final String FULL_SUFFIX = ".webp";
+    private static final String DETAIL_SUFFIX = "_detail.webp";
+    private static final String LIST_SUFFIX = "_list.webp";
+    static final String PARTIAL_SUFFIX = ".part";
+
+    // An image is written when it is picked, before the product using it is
+    // saved; files younger than this are never collected
+    private static final long GC_GRACE_MILLIS = 60 * 60 * 1000;
+
+    public static final class GcResult {
+        public final int filesDeleted;
+        public final long bytesReclaimed;
+
+        GcResult(int filesDeleted, long bytesReclaimed) {
+            this.filesDeleted = filesDeleted;
+            this.bytesReclaimed = bytesReclaimed;
+        }
+
+        @Override
+        public String toString() {
+            return filesDeleted + " files, " + bytesReclaimed + " bytes";
+        }
+    }
+
+    private static volatile ProductImageStore instance;
+
+    private final File directory;
+
+    public static ProductImageStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ProductImageStore.class) {
+                if (instance == null) {
+                    instance = new ProductImageStore(new File(context.getFilesDir(), IMAGE_DIR));
+                }
+            }
+        }
+        return instance;
+    }
+
+    ProductImageStore(File directory) {
+        this.directory = directory;
+    }
+
+    // ==================== NAMING ====================
+
+    // Hex SHA-256 of everything the stream holds
+    static String hashOf(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        int length;
+        while ((length = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, length);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+
+    File fullFile(String hash) {
+        return new File(directory, hash + FULL_SUFFIX);
+    }
+
+    File detailFile(String hash) {
+        return new File(directory, hash + DETAIL_SUFFIX);
+    }
+
+    File listFile(String hash) {
+        return new File(directory, hash + LIST_SUFFIX);
+    }
+
+    File ensureDirectory() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        return directory;
+    }
+
+    // The stored files for a source, or null if any of them is missing
+    synchronized ImageIngester.ProductImages find(String hash) {
+        File full = fullFile(hash);
+        File detail = detailFile(hash);
+        File list = listFile(hash);
+        if (!full.isFile() || !detail.isFile() || !list.isFile()) {
+            return null;
+        }
+        // About to be used again: restart the grace period so a collection
+        // running before the product is saved leaves them alone
+        long now = System.currentTimeMillis();
+        full.setLastModified(now);
+        detail.setLastModified(now);
+        list.setLastModified(now);
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(full.getAbsolutePath(), bounds);
+        return new ImageIngester.ProductImages(full.getAbsolutePath(), detail.getAbsolutePath(),
+                list.getAbsolutePath(), bounds.outWidth, bounds.outHeight, full.length());
+    }
+
+    // Name of the file that owns this one: thumbnails belong to their full image
+    static String ownerOf(String fileName) {
+        if (fileName.endsWith(DETAIL_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - DETAIL_SUFFIX.length()) + FULL_SUFFIX;
+        }
+        if (fileName.endsWith(LIST_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - LIST_SUFFIX.length()) + FULL_SUFFIX;
+        }
+        return fileName;
+    }
+
+    // ==================== GARBAGE COLLECTION ====================
+
+    /**
+     * Deletes the files nothing refers to. {@code referencedPaths} holds every
+     * image path still stored in the database; see
+     * DatabaseHelper.getReferencedImagePaths. Abandoned partial writes go too.
+     */
+    public synchronized GcResult collectGarbage(Set<String> referencedPaths) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return new GcResult(0, 0);
+        }
+
+        Set<String> liveOwners = new HashSet<>();
+        for (String path : referencedPaths) {
+            File file = new File(path);
+            if (directory.equals(file.getParentFile())) {
+                liveOwners.add(ownerOf(file.getName()));
+            }
+        }
+
+        long cutoff = System.currentTimeMillis() - GC_GRACE_MILLIS;
+        int deleted = 0;
+        long reclaimed = 0;
+        for (File file : files) {
+            String name = file.getName();
+            boolean garbage = name.endsWith(PARTIAL_SUFFIX) || !liveOwners.contains(ownerOf(name));
+            if (!file.isFile() || !garbage || file.lastModified() > cutoff) {
+                continue;
+            }
+            long size = file.length();
+            if (file.delete()) {
+                deleted++;
+                reclaimed += size;
+            } else {
+                Log.w(TAG, "Could not delete " + file);
+            }
+        }
+        return new GcResult(deleted, reclaimed);
+    }
+}
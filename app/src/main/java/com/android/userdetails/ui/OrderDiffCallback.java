@@ -0,0 +1,41 @@
+package com.android.userdetails.ui;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.android.userdetails.model.Order;
+
+import java.util.Objects;
+
+/**
+ * Diffs order lists for ListAdapter, by order id. A change to the status
+ * alone, the usual edit on the orders screen, carries
+ * {@link #PAYLOAD_STATUS} so only the status text is rebound.
+ */
+public class OrderDiffCallback extends DiffUtil.ItemCallback<Order> {
+
+    public static final String PAYLOAD_STATUS = "status";
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+        return oldItem.getId() == newItem.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+        return sameDetails(oldItem, newItem)
+                && Objects.equals(oldItem.getStatus(), newItem.getStatus());
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull Order oldItem, @NonNull Order newItem) {
+        // null asks for a full rebind
+        return sameDetails(oldItem, newItem) ? PAYLOAD_STATUS : null;
+    }
+
+    private static boolean sameDetails(Order oldItem, Order newItem) {
+        return Objects.equals(oldItem.getPhoneNumber(), newItem.getPhoneNumber())
+                && Double.compare(oldItem.getTotalPrice(), newItem.getTotalPrice()) == 0
+                && Objects.equals(oldItem.getOrderDate(), newItem.getOrderDate());
+    }
+}
@@ -0,0 +1,47 @@
+package com.android.userdetails.ui;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.android.userdetails.model.Product;
+
+import java.util.Objects;
+
+/**
+ * Diffs product lists for ListAdapter, by id. The diff runs on ListAdapter's
+ * background executor, so a reload only rebinds the rows that changed.
+ *
+ * When a product's text or price changed but its image did not, the change
+ * carries {@link #PAYLOAD_TEXT} and the row can skip reloading its image.
+ */
+public class ProductDiffCallback extends DiffUtil.ItemCallback<Product> {
+
+    public static final String PAYLOAD_TEXT = "text";
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+        return oldItem.getId() == newItem.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+        return sameImage(oldItem, newItem) && sameText(oldItem, newItem);
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull Product oldItem, @NonNull Product newItem) {
+        // null asks for a full rebind
+        return sameImage(oldItem, newItem) ? PAYLOAD_TEXT : null;
+    }
+
+    private static boolean sameImage(Product oldItem, Product newItem) {
+        return Objects.equals(oldItem.getListImage(), newItem.getListImage())
+                && Objects.equals(oldItem.getImageAvailable(), newItem.getImageAvailable());
+    }
+
+    private static boolean sameText(Product oldItem, Product newItem) {
+        return Objects.equals(oldItem.getName(), newItem.getName())
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && Double.compare(oldItem.getPrice(), newItem.getPrice()) == 0;
+    }
+}
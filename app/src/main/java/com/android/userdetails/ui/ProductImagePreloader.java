@@ -0,0 +1,81 @@
+package com.android.userdetails.ui;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ListAdapter;
+
+import com.android.userdetails.model.Product;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodes the list thumbnails of the rows just past the visible ones, at the
+ * exact size of the row's ImageView, so a fling lands on images that are
+ * already in Glide's memory cache.
+ *
+ * Rows must load their image through {@link #listImageRequest}: a preload
+ * only helps if its cache key (file, size and transformation) matches the
+ * request the row makes later.
+ */
+public class ProductImagePreloader implements ListPreloader.PreloadModelProvider<File> {
+
+    // About one screen of product rows
+    public static final int PRELOAD_ROWS = 6;
+
+    private final RequestManager glide;
+    private final ListAdapter<Product, ?> adapter;
+
+    private ProductImagePreloader(RequestManager glide, ListAdapter<Product, ?> adapter) {
+        this.glide = glide;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Scroll listener to add to the product RecyclerView. The adapter hands
+     * one of its row ImageViews to {@code sizeProvider.setView} so preloads
+     * use the size rows are drawn at.
+     */
+    public static RecyclerViewPreloader<File> create(RequestManager glide,
+                                                     ListAdapter<Product, ?> adapter,
+                                                     ViewPreloadSizeProvider<File> sizeProvider) {
+        return new RecyclerViewPreloader<>(glide, new ProductImagePreloader(glide, adapter),
+                sizeProvider, PRELOAD_ROWS);
+    }
+
+    // The one request shape used for product thumbnails in lists
+    public static RequestBuilder<Drawable> listImageRequest(RequestManager glide, File file) {
+        return glide.load(file)
+                .centerCrop()
+                .placeholder(android.R.drawable.ic_menu_gallery);
+    }
+
+    @NonNull
+    @Override
+    public List<File> getPreloadItems(int position) {
+        List<Product> products = adapter.getCurrentList();
+        if (position < 0 || position >= products.size()) {
+            return Collections.emptyList();
+        }
+        // Same check as bind(): a file known to be missing is not fetched
+        Product product = products.get(position);
+        if (!product.hasLoadableImage()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new File(product.getListImage()));
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull File file) {
+        return listImageRequest(glide, file);
+    }
+}
@@ -0,0 +1,107 @@
+package com.android.userdetails.ui;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.userdetails.db.DataRepository;
+import com.android.userdetails.model.Product;
+
+import java.util.List;
+
+/**
+ * Feeds a product RecyclerView one keyset page at a time. The next page is
+ * requested while the user is still PREFETCH_DISTANCE rows away from the end,
+ * so scrolling normally never reaches an unloaded row.
+ */
+public class ProductPageLoader {
+
+    public static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 10;
+
+    public interface Listener {
+        void onPageLoaded(List<Product> page, boolean firstPage);
+    }
+
+    private final DataRepository repository;
+    private final Listener listener;
+
+    private int lastId = 0;
+    private long loadedVersion = -1;
+    private boolean loading = false;
+    private boolean endReached = false;
+    // Bumped on reload so a page still in flight for the old list is ignored
+    private int generation = 0;
+
+    public ProductPageLoader(DataRepository repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) {
+                    return;
+                }
+                LinearLayoutManager layoutManager = (LinearLayoutManager) rv.getLayoutManager();
+                RecyclerView.Adapter<?> adapter = rv.getAdapter();
+                if (layoutManager == null || adapter == null) {
+                    return;
+                }
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible + PREFETCH_DISTANCE >= adapter.getItemCount()) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    // Start again from the newest product
+    public void reload() {
+        loadedVersion = repository.getCatalogVersion();
+        generation++;
+        lastId = 0;
+        endReached = false;
+        loading = false;
+        loadNextPage();
+    }
+
+    // Reloads only if the catalog changed since the last reload, e.g. when
+    // coming back to the screen. Returns whether a reload started.
+    public boolean reloadIfChanged() {
+        if (loadedVersion == repository.getCatalogVersion()) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    public void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+
+        final int requestGeneration = generation;
+        final boolean firstPage = lastId == 0;
+        repository.getProductsPage(lastId, PAGE_SIZE, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (page == null) {
+                // Failed; the next scroll tries the same page again
+                return;
+            }
+            if (page.size() < PAGE_SIZE) {
+                endReached = true;
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+            listener.onPageLoaded(page, firstPage);
+        });
+    }
+}
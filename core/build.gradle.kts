@@ -0,0 +1,40 @@
+// Models and the SQL shared by the app's DatabaseHelper, as a plain Java
+// library so they can be exercised on the JVM.
+//
+// Benchmarks:  ./gradlew :core:jmh
+// Results:     core/build/results/jmh/results.json (JMH's JSON format)
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // Part of Android; the app gets it from the platform
+    compileOnly(libs.org.json)
+
+    testImplementation(libs.junit)
+
+    jmh(libs.org.json)
+    jmh(libs.sqlite.jdbc)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    benchmarkMode = listOf("avgt")
+    timeUnit = "us"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    humanOutputFile = layout.buildDirectory.file("results/jmh/human.txt")
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
@@ -0,0 +1,369 @@
+package com.android.userdetails.bench;
+
+import com.android.userdetails.data.CatalogSchema;
+import com.android.userdetails.data.ProductSearch;
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.Product;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The catalog and order tables in a throwaway SQLite file, reached through
+ * sqlite-jdbc.
+ *
+ * The schema and the statements come from CatalogSchema, and the reads
+ * mirror DatabaseHelper's: same selections, same ordering, rows mapped into
+ * the same model objects. Only the driver differs, so the numbers track the
+ * SQL and the mapping, not Android's SQLite wrapper.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private final File file;
+    private final Connection connection;
+    // Order times are shown in the user's locale, as OrderRowMapper does
+    private final DateFormat displayFormat =
+            DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT);
+
+    private BenchmarkDatabase(File file, Connection connection) {
+        this.file = file;
+        this.connection = connection;
+    }
+
+    static BenchmarkDatabase create() throws IOException, SQLException {
+        File file = File.createTempFile("userdetails-bench", ".db");
+        file.deleteOnExit();
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        BenchmarkDatabase db = new BenchmarkDatabase(file, connection);
+        db.createSchema();
+        return db;
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = ON");
+            statement.execute("PRAGMA journal_mode = WAL");
+            statement.execute(CatalogSchema.CREATE_TABLE_PRODUCTS);
+            statement.execute(CatalogSchema.CREATE_TABLE_ORDERS);
+            statement.execute(CatalogSchema.CREATE_TABLE_ORDER_ITEMS);
+            statement.execute(CatalogSchema.CREATE_INDEX_ORDER_ITEMS_ORDER);
+            statement.execute(CatalogSchema.CREATE_INDEX_ORDER_ITEMS_PRODUCT);
+            try {
+                statement.execute(CatalogSchema.CREATE_TABLE_PRODUCTS_FTS);
+            } catch (SQLException e) {
+                statement.execute(CatalogSchema.CREATE_TABLE_PRODUCTS_FTS_SIMPLE);
+            }
+            for (String trigger : CatalogSchema.createProductsFtsTriggers()) {
+                statement.execute(trigger);
+            }
+            for (String index : CatalogSchema.createOrdersIndexes()) {
+                statement.execute(index);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    // ==================== FILL ====================
+
+    // The dataset's products, in one transaction. Image paths point nowhere
+    // but give the rows their real size.
+    void fillProducts(SyntheticDataset dataset) throws SQLException {
+        String sql = "INSERT INTO " + CatalogSchema.TABLE_PRODUCTS + " ("
+                + CatalogSchema.COLUMN_PRODUCT_NAME + ", " + CatalogSchema.COLUMN_PRODUCT_DESCRIPTION + ", "
+                + CatalogSchema.COLUMN_PRODUCT_PRICE + ", " + CatalogSchema.COLUMN_PRODUCT_IMAGE + ", "
+                + CatalogSchema.COLUMN_PRODUCT_IMAGE_LIST + ") VALUES (?, ?, ?, ?, ?)";
+        inTransaction(() -> {
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                Iterator<SyntheticDataset.ProductRecord> products = dataset.products();
+                while (products.hasNext()) {
+                    SyntheticDataset.ProductRecord record = products.next();
+                    Product product = record.product;
+                    String image = record.imageStub < 0 ? null : "/data/images/stub" + record.imageStub;
+                    insert.setString(1, product.getName());
+                    insert.setString(2, product.getDescription());
+                    insert.setDouble(3, product.getPrice());
+                    insert.setString(4, image == null ? null : image + ".webp");
+                    insert.setString(5, image == null ? null : image + "_list.webp");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+
+    // The dataset's orders with their lines, in one transaction; call after
+    // fillProducts on an empty database so the product ids line up
+    void fillOrders(SyntheticDataset dataset) throws SQLException {
+        inTransaction(() -> {
+            Iterator<SyntheticDataset.OrderRecord> orders = dataset.orders(1);
+            while (orders.hasNext()) {
+                SyntheticDataset.OrderRecord record = orders.next();
+                Order order = record.order;
+                writeOrder(order.getPhoneNumber(), order.getAddress(), record.items,
+                        order.getOrderDateMillis(), order.getStatus());
+            }
+        });
+    }
+
+    // One to four lines over the first productCount products
+    static List<OrderItem> randomItems(Random random, int productCount) {
+        int lines = 1 + random.nextInt(4);
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            int productId = 1 + random.nextInt(Math.max(productCount, 1));
+            items.add(new OrderItem(productId, "Product " + productId,
+                    100 + random.nextInt(5000), 1 + random.nextInt(3)));
+        }
+        return items;
+    }
+
+    // ==================== PRODUCTS ====================
+
+    // DatabaseHelper.getAllProducts without the cache
+    List<Product> getAllProducts() throws SQLException {
+        String sql = "SELECT * FROM " + CatalogSchema.TABLE_PRODUCTS
+                + " ORDER BY " + CatalogSchema.COLUMN_PRODUCT_ID + " DESC";
+        try (PreparedStatement query = connection.prepareStatement(sql);
+             ResultSet rows = query.executeQuery()) {
+            return mapProducts(rows);
+        }
+    }
+
+    // DatabaseHelper.getProductsPage without the cache
+    List<Product> getProductsPage(int afterId, int limit) throws SQLException {
+        String sql = "SELECT * FROM " + CatalogSchema.TABLE_PRODUCTS
+                + (afterId > 0 ? " WHERE " + CatalogSchema.COLUMN_PRODUCT_ID + " < ?" : "")
+                + " ORDER BY " + CatalogSchema.COLUMN_PRODUCT_ID + " DESC LIMIT ?";
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId > 0) {
+                query.setInt(index++, afterId);
+            }
+            query.setInt(index, limit);
+            try (ResultSet rows = query.executeQuery()) {
+                return mapProducts(rows);
+            }
+        }
+    }
+
+    // DatabaseHelper.searchProducts
+    List<Product> searchProducts(String searchText, int limit) throws SQLException {
+        String matchQuery = ProductSearch.buildMatchQuery(searchText);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
+        ProductSearch.TopMatches matches = new ProductSearch.TopMatches(limit);
+        try (PreparedStatement query = connection.prepareStatement(CatalogSchema.SEARCH_MATCHES_SQL)) {
+            query.setString(1, matchQuery);
+            try (ResultSet rows = query.executeQuery()) {
+                int idIndex = rows.findColumn(ProductSearch.COLUMN_DOCID);
+                int rankIndex = rows.findColumn(ProductSearch.COLUMN_RANK_INFO);
+                while (rows.next()) {
+                    matches.offer(rows.getInt(idIndex), ProductSearch.bm25(rows.getBytes(rankIndex)));
+                }
+            }
+        }
+
+        int[] ids = matches.rankedIds();
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM " + CatalogSchema.TABLE_PRODUCTS
+                + " WHERE " + CatalogSchema.productIdIn(ids.length);
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ids.length; i++) {
+                query.setInt(i + 1, ids[i]);
+            }
+            try (ResultSet rows = query.executeQuery()) {
+                return ProductSearch.inRankOrder(ids, mapProducts(rows));
+            }
+        }
+    }
+
+    private static List<Product> mapProducts(ResultSet rows) throws SQLException {
+        ProductColumns columns = new ProductColumns(rows);
+        List<Product> products = new ArrayList<>();
+        while (rows.next()) {
+            products.add(columns.map(rows));
+        }
+        return products;
+    }
+
+    // ProductRowMapper for a ResultSet: column indexes are looked up once
+    private static final class ProductColumns {
+        final int id;
+        final int name;
+        final int description;
+        final int price;
+        final int image;
+        final int listImage;
+        final int detailImage;
+        final int imageOk;
+
+        ProductColumns(ResultSet rows) throws SQLException {
+            id = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_ID);
+            name = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_NAME);
+            description = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_DESCRIPTION);
+            price = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_PRICE);
+            image = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_IMAGE);
+            listImage = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_IMAGE_LIST);
+            detailImage = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_IMAGE_DETAIL);
+            imageOk = rows.findColumn(CatalogSchema.COLUMN_PRODUCT_IMAGE_OK);
+        }
+
+        Product map(ResultSet rows) throws SQLException {
+            Product product = new Product();
+            product.setId(rows.getInt(id));
+            product.setName(rows.getString(name));
+            product.setDescription(rows.getString(description));
+            product.setPrice(rows.getDouble(price));
+            String imagePath = rows.getString(image);
+            product.setImage(imagePath != null ? imagePath : "");
+            product.setListImagePath(rows.getString(listImage));
+            product.setDetailImagePath(rows.getString(detailImage));
+            int ok = rows.getInt(imageOk);
+            if (!rows.wasNull()) {
+                product.setImageAvailable(ok != 0);
+            }
+            return product;
+        }
+    }
+
+    // ==================== ORDERS ====================
+
+    // DatabaseHelper.addOrder, without the sales rollups
+    long addOrder(String phone, String address, List<OrderItem> items) throws SQLException {
+        long[] id = new long[1];
+        inTransaction(() -> id[0] = writeOrder(phone, address, items,
+                System.currentTimeMillis(), "Pending"));
+        return id[0];
+    }
+
+    // The order row and its lines; the caller owns the transaction
+    private long writeOrder(String phone, String address, List<OrderItem> items,
+                            long placedAt, String status) throws SQLException {
+        double total = 0;
+        for (OrderItem item : items) {
+            total += item.getLineTotal();
+        }
+        String sql = "INSERT INTO " + CatalogSchema.TABLE_ORDERS + " ("
+                + CatalogSchema.COLUMN_ORDER_PHONE + ", " + CatalogSchema.COLUMN_ORDER_ADDRESS + ", "
+                + CatalogSchema.COLUMN_ORDER_TOTAL + ", " + CatalogSchema.COLUMN_ORDER_DATE_MS + ", "
+                + CatalogSchema.COLUMN_ORDER_STATUS + ") VALUES (?, ?, ?, ?, ?)";
+        long id;
+        try (PreparedStatement insert = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, phone);
+            insert.setString(2, address);
+            insert.setDouble(3, total);
+            insert.setLong(4, placedAt);
+            insert.setString(5, status);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                id = keys.getLong(1);
+            }
+        }
+        try (PreparedStatement insertItem = connection.prepareStatement(CatalogSchema.INSERT_ORDER_ITEM_SQL)) {
+            for (OrderItem item : items) {
+                insertItem.setLong(1, id);
+                insertItem.setLong(2, item.getProductId());
+                insertItem.setString(3, item.getName());
+                insertItem.setDouble(4, item.getUnitPrice());
+                insertItem.setLong(5, item.getQuantity());
+                insertItem.executeUpdate();
+            }
+        }
+        return id;
+    }
+
+    // DatabaseHelper.getAllOrders
+    List<Order> getAllOrders() throws SQLException {
+        String sql = "SELECT * FROM " + CatalogSchema.TABLE_ORDERS
+                + " ORDER BY " + CatalogSchema.COLUMN_ORDER_ID + " DESC";
+        try (PreparedStatement query = connection.prepareStatement(sql);
+             ResultSet rows = query.executeQuery()) {
+            return mapOrders(rows);
+        }
+    }
+
+    // DatabaseHelper.getOrdersBetween
+    List<Order> getOrdersBetween(long fromMillis, long toMillis, int limit) throws SQLException {
+        String sql = "SELECT * FROM " + CatalogSchema.TABLE_ORDERS
+                + " WHERE " + CatalogSchema.COLUMN_ORDER_DATE_MS + " >= ? AND "
+                + CatalogSchema.COLUMN_ORDER_DATE_MS + " < ?"
+                + " ORDER BY " + CatalogSchema.COLUMN_ORDER_DATE_MS + " DESC LIMIT ?";
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            query.setLong(1, fromMillis);
+            query.setLong(2, toMillis);
+            query.setInt(3, limit);
+            try (ResultSet rows = query.executeQuery()) {
+                return mapOrders(rows);
+            }
+        }
+    }
+
+    // OrderRowMapper for a ResultSet
+    private List<Order> mapOrders(ResultSet rows) throws SQLException {
+        int id = rows.findColumn(CatalogSchema.COLUMN_ORDER_ID);
+        int phone = rows.findColumn(CatalogSchema.COLUMN_ORDER_PHONE);
+        int address = rows.findColumn(CatalogSchema.COLUMN_ORDER_ADDRESS);
+        int products = rows.findColumn(CatalogSchema.COLUMN_ORDER_PRODUCTS);
+        int total = rows.findColumn(CatalogSchema.COLUMN_ORDER_TOTAL);
+        int dateMillis = rows.findColumn(CatalogSchema.COLUMN_ORDER_DATE_MS);
+        int status = rows.findColumn(CatalogSchema.COLUMN_ORDER_STATUS);
+
+        List<Order> orders = new ArrayList<>();
+        while (rows.next()) {
+            Order order = new Order();
+            order.setId(rows.getInt(id));
+            order.setPhoneNumber(rows.getString(phone));
+            order.setAddress(rows.getString(address));
+            order.setProducts(rows.getString(products));
+            order.setTotalPrice(rows.getDouble(total));
+            long millis = rows.getLong(dateMillis);
+            order.setOrderDateMillis(millis);
+            order.setOrderDate(displayFormat.format(new Date(millis)));
+            order.setStatus(rows.getString(status));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    private interface Work {
+        void run() throws SQLException;
+    }
+
+    private void inTransaction(Work work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
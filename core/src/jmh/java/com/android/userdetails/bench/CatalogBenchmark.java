@@ -0,0 +1,67 @@
+package com.android.userdetails.bench;
+
+import com.android.userdetails.data.DatasetSpec;
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.model.Product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+
+/**
+ * Catalog reads: the full list, the first and a deep keyset page, and a
+ * ranked full-text search. All are read-only, so one database per catalog
+ * size serves every iteration.
+ */
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+
+    // Same page size as ProductPageLoader
+    private static final int PAGE_SIZE = 30;
+    private static final int SEARCH_LIMIT = 50;
+
+    @Param({"1000", "10000"})
+    public int productCount;
+
+    private BenchmarkDatabase db;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create();
+        db.fillProducts(new SyntheticDataset(
+                new DatasetSpec(42, 1, productCount, 0, 16, 365, System.currentTimeMillis())));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Benchmark
+    public List<Product> loadAll() throws Exception {
+        return db.getAllProducts();
+    }
+
+    @Benchmark
+    public List<Product> loadFirstPage() throws Exception {
+        return db.getProductsPage(0, PAGE_SIZE);
+    }
+
+    // Near the end of the list; keyset paging should cost the same as the first page
+    @Benchmark
+    public List<Product> loadDeepPage() throws Exception {
+        return db.getProductsPage(PAGE_SIZE + 1, PAGE_SIZE);
+    }
+
+    // Two prefix terms, like a user part-way through typing
+    @Benchmark
+    public List<Product> search() throws Exception {
+        return db.searchProducts("cotton shi", SEARCH_LIMIT);
+    }
+}
@@ -0,0 +1,69 @@
+package com.android.userdetails.bench;
+
+import com.android.userdetails.data.DatasetSpec;
+import com.android.userdetails.data.SyntheticDataset;
+import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Order writes and listings. Placing an order adds rows, so the database is
+ * rebuilt for every iteration to keep the listings measuring the same size.
+ */
+@State(Scope.Benchmark)
+public class OrderBenchmark {
+
+    private static final int USER_COUNT = 500;
+    private static final int PRODUCT_COUNT = 1000;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    @Param({"1000", "10000"})
+    public int orderCount;
+
+    private BenchmarkDatabase db;
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        db = BenchmarkDatabase.create();
+        SyntheticDataset dataset = new SyntheticDataset(new DatasetSpec(42, USER_COUNT, PRODUCT_COUNT,
+                orderCount, 16, 365, System.currentTimeMillis()));
+        db.fillProducts(dataset);
+        db.fillOrders(dataset);
+        random = new Random(99);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    // One order with its lines, in one transaction
+    @Benchmark
+    public long insertOrder() throws Exception {
+        List<OrderItem> items = BenchmarkDatabase.randomItems(random, PRODUCT_COUNT);
+        return db.addOrder("01700000000", "Dhaka", items);
+    }
+
+    @Benchmark
+    public List<Order> listAllOrders() throws Exception {
+        return db.getAllOrders();
+    }
+
+    // The orders screen's last-30-days range scan
+    @Benchmark
+    public List<Order> listRecentOrders() throws Exception {
+        long now = System.currentTimeMillis();
+        return db.getOrdersBetween(now - 30 * DAY_MS, now + DAY_MS, 100);
+    }
+}
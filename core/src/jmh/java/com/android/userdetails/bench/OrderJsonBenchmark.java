@@ -0,0 +1,46 @@
+package com.android.userdetails.bench;
+
+import com.android.userdetails.data.LegacyOrderItems;
+import com.android.userdetails.model.OrderItem;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Parsing the JSON product list of pre-version-5 orders, which the order
+ * items backfill does once per legacy order.
+ */
+@State(Scope.Benchmark)
+public class OrderJsonBenchmark {
+
+    // Units in the order; the legacy format has one entry per unit
+    @Param({"1", "10", "50"})
+    public int units;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < units; i++) {
+            JSONObject entry = new JSONObject();
+            entry.put("id", i + 1);
+            entry.put("name", "Cotton Shirt " + (i + 1));
+            entry.put("price", 850.0 + i);
+            array.put(entry);
+        }
+        json = array.toString();
+    }
+
+    @Benchmark
+    public List<OrderItem> parse() throws Exception {
+        return LegacyOrderItems.parse(json);
+    }
+}
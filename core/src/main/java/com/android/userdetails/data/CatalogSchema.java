@@ -0,0 +1,175 @@
+package com.android.userdetails.data;
+
+/**
+ * Names and DDL of the catalog and order tables: products, its products_fts
+ * index, orders and order_items.
+ *
+ * The app's DatabaseHelper creates and queries these tables through Android's
+ * SQLite; the JMH benchmarks in this module run the same statements on the
+ * JVM, so a schema or query change here is measured exactly as it ships.
+ * Tables only the app uses (users, cart, rollups, ...) stay in DatabaseHelper.
+ */
+public final class CatalogSchema {
+
+    // Products Table
+    public static final String TABLE_PRODUCTS = "products";
+    public static final String COLUMN_PRODUCT_ID = "id";
+    public static final String COLUMN_PRODUCT_NAME = "name";
+    public static final String COLUMN_PRODUCT_DESCRIPTION = "description";
+    public static final String COLUMN_PRODUCT_PRICE = "price";
+    public static final String COLUMN_PRODUCT_IMAGE = "image";
+    public static final String COLUMN_PRODUCT_IMAGE_LIST = "image_list";     // list-row thumbnail
+    public static final String COLUMN_PRODUCT_IMAGE_DETAIL = "image_detail"; // detail-size copy
+    // Image metadata, recorded at ingest and kept in step with the disk.
+    // image_ok is 1 or 0, NULL until first checked.
+    public static final String COLUMN_PRODUCT_IMAGE_OK = "image_ok";
+    public static final String COLUMN_PRODUCT_IMAGE_WIDTH = "image_width";
+    public static final String COLUMN_PRODUCT_IMAGE_HEIGHT = "image_height";
+    public static final String COLUMN_PRODUCT_IMAGE_BYTES = "image_bytes";
+
+    // Product full-text index over name and description (docid = products.id)
+    public static final String TABLE_PRODUCTS_FTS = "products_fts";
+
+    // Orders Table
+    public static final String TABLE_ORDERS = "orders";
+    public static final String COLUMN_ORDER_ID = "order_id";
+    public static final String COLUMN_ORDER_PHONE = "phone_number";
+    public static final String COLUMN_ORDER_ADDRESS = "order_address";
+    public static final String COLUMN_ORDER_PRODUCTS = "products";
+    public static final String COLUMN_ORDER_TOTAL = "total_price";
+    public static final String COLUMN_ORDER_DATE = "order_date"; // legacy local-time text, not written any more
+    public static final String COLUMN_ORDER_DATE_MS = "order_date_ms"; // epoch millis
+    public static final String COLUMN_ORDER_STATUS = "status";
+
+    // Order Items Table (one row per product line of an order)
+    public static final String TABLE_ORDER_ITEMS = "order_items";
+    public static final String COLUMN_ITEM_ID = "id";
+    public static final String COLUMN_ITEM_ORDER_ID = "order_id";
+    public static final String COLUMN_ITEM_PRODUCT_ID = "product_id";
+    public static final String COLUMN_ITEM_NAME = "name_snapshot";
+    public static final String COLUMN_ITEM_UNIT_PRICE = "unit_price";
+    public static final String COLUMN_ITEM_QTY = "qty";
+
+    // ==================== DDL ====================
+
+    public static final String CREATE_TABLE_PRODUCTS = "CREATE TABLE " + TABLE_PRODUCTS + "("
+            + COLUMN_PRODUCT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + COLUMN_PRODUCT_NAME + " TEXT NOT NULL,"
+            + COLUMN_PRODUCT_DESCRIPTION + " TEXT,"
+            + COLUMN_PRODUCT_PRICE + " REAL NOT NULL,"
+            + COLUMN_PRODUCT_IMAGE + " TEXT,"
+            + COLUMN_PRODUCT_IMAGE_LIST + " TEXT,"
+            + COLUMN_PRODUCT_IMAGE_DETAIL + " TEXT,"
+            + COLUMN_PRODUCT_IMAGE_OK + " INTEGER,"
+            + COLUMN_PRODUCT_IMAGE_WIDTH + " INTEGER NOT NULL DEFAULT 0,"
+            + COLUMN_PRODUCT_IMAGE_HEIGHT + " INTEGER NOT NULL DEFAULT 0,"
+            + COLUMN_PRODUCT_IMAGE_BYTES + " INTEGER NOT NULL DEFAULT 0"
+            + ");";
+
+    public static final String CREATE_TABLE_ORDERS = "CREATE TABLE " + TABLE_ORDERS + "("
+            + COLUMN_ORDER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + COLUMN_ORDER_PHONE + " TEXT,"
+            + COLUMN_ORDER_ADDRESS + " TEXT,"
+            + COLUMN_ORDER_PRODUCTS + " TEXT,"
+            + COLUMN_ORDER_TOTAL + " REAL,"
+            + COLUMN_ORDER_DATE + " TEXT,"
+            + COLUMN_ORDER_STATUS + " TEXT DEFAULT 'Pending',"
+            + COLUMN_ORDER_DATE_MS + " INTEGER"
+            + ");";
+
+    public static final String CREATE_TABLE_ORDER_ITEMS = "CREATE TABLE " + TABLE_ORDER_ITEMS + "("
+            + COLUMN_ITEM_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + COLUMN_ITEM_ORDER_ID + " INTEGER NOT NULL REFERENCES " + TABLE_ORDERS
+            + "(" + COLUMN_ORDER_ID + ") ON DELETE CASCADE,"
+            + COLUMN_ITEM_PRODUCT_ID + " INTEGER NOT NULL,"
+            + COLUMN_ITEM_NAME + " TEXT,"
+            + COLUMN_ITEM_UNIT_PRICE + " REAL NOT NULL,"
+            + COLUMN_ITEM_QTY + " INTEGER NOT NULL DEFAULT 1"
+            + ");";
+
+    public static final String CREATE_INDEX_ORDER_ITEMS_ORDER = "CREATE INDEX IF NOT EXISTS idx_order_items_order ON "
+            + TABLE_ORDER_ITEMS + "(" + COLUMN_ITEM_ORDER_ID + ");";
+
+    public static final String CREATE_INDEX_ORDER_ITEMS_PRODUCT = "CREATE INDEX IF NOT EXISTS idx_order_items_product ON "
+            + TABLE_ORDER_ITEMS + "(" + COLUMN_ITEM_PRODUCT_ID + ", " + COLUMN_ITEM_QTY + ", " + COLUMN_ITEM_UNIT_PRICE + ");";
+
+    // unicode61 splits on Unicode separators and punctuation, so Bangla words
+    // and the danda are handled like English. Older builds without it fall
+    // back to the simple tokenizer.
+    public static final String CREATE_TABLE_PRODUCTS_FTS = "CREATE VIRTUAL TABLE " + TABLE_PRODUCTS_FTS
+            + " USING fts4(content=\"" + TABLE_PRODUCTS + "\", "
+            + COLUMN_PRODUCT_NAME + ", " + COLUMN_PRODUCT_DESCRIPTION + ", tokenize=unicode61);";
+
+    public static final String CREATE_TABLE_PRODUCTS_FTS_SIMPLE = "CREATE VIRTUAL TABLE " + TABLE_PRODUCTS_FTS
+            + " USING fts4(content=\"" + TABLE_PRODUCTS + "\", "
+            + COLUMN_PRODUCT_NAME + ", " + COLUMN_PRODUCT_DESCRIPTION + ");";
+
+    // Keep products_fts in step with products. Old rows leave the index
+    // before the change and new rows enter it afterwards. Updates that leave
+    // the indexed text alone (price, images, image checks) skip the index.
+    private static final String[] CREATE_PRODUCTS_FTS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS products_fts_bu BEFORE UPDATE OF " + COLUMN_PRODUCT_NAME + ", " + COLUMN_PRODUCT_DESCRIPTION
+                    + " ON " + TABLE_PRODUCTS + " BEGIN"
+                    + " DELETE FROM " + TABLE_PRODUCTS_FTS + " WHERE docid = old." + COLUMN_PRODUCT_ID + ";"
+                    + " END;",
+            "CREATE TRIGGER IF NOT EXISTS products_fts_bd BEFORE DELETE ON " + TABLE_PRODUCTS + " BEGIN"
+                    + " DELETE FROM " + TABLE_PRODUCTS_FTS + " WHERE docid = old." + COLUMN_PRODUCT_ID + ";"
+                    + " END;",
+            "CREATE TRIGGER IF NOT EXISTS products_fts_au AFTER UPDATE OF " + COLUMN_PRODUCT_NAME + ", " + COLUMN_PRODUCT_DESCRIPTION
+                    + " ON " + TABLE_PRODUCTS + " BEGIN"
+                    + " INSERT INTO " + TABLE_PRODUCTS_FTS + "(docid, " + COLUMN_PRODUCT_NAME + ", " + COLUMN_PRODUCT_DESCRIPTION + ")"
+                    + " VALUES (new." + COLUMN_PRODUCT_ID + ", new." + COLUMN_PRODUCT_NAME + ", new." + COLUMN_PRODUCT_DESCRIPTION + ");"
+                    + " END;",
+            "CREATE TRIGGER IF NOT EXISTS products_fts_ai AFTER INSERT ON " + TABLE_PRODUCTS + " BEGIN"
+                    + " INSERT INTO " + TABLE_PRODUCTS_FTS + "(docid, " + COLUMN_PRODUCT_NAME + ", " + COLUMN_PRODUCT_DESCRIPTION + ")"
+                    + " VALUES (new." + COLUMN_PRODUCT_ID + ", new." + COLUMN_PRODUCT_NAME + ", new." + COLUMN_PRODUCT_DESCRIPTION + ");"
+                    + " END;"
+    };
+
+    // Secondary indexes on orders. Date ranges and newest-first listings
+    // walk the epoch column, which sorts correctly in every locale.
+    private static final String[] CREATE_ORDERS_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_orders_status ON " + TABLE_ORDERS
+                    + "(" + COLUMN_ORDER_STATUS + ");",
+            "CREATE INDEX IF NOT EXISTS idx_orders_date_ms ON " + TABLE_ORDERS
+                    + "(" + COLUMN_ORDER_DATE_MS + ");",
+            "CREATE INDEX IF NOT EXISTS idx_orders_phone_ms ON " + TABLE_ORDERS
+                    + "(" + COLUMN_ORDER_PHONE + ", " + COLUMN_ORDER_DATE_MS + ");"
+    };
+
+    // ==================== QUERIES ====================
+
+    public static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO " + TABLE_ORDER_ITEMS + " ("
+            + COLUMN_ITEM_ORDER_ID + ", " + COLUMN_ITEM_PRODUCT_ID + ", " + COLUMN_ITEM_NAME + ", "
+            + COLUMN_ITEM_UNIT_PRICE + ", " + COLUMN_ITEM_QTY + ") VALUES (?, ?, ?, ?, ?)";
+
+    // Every products_fts hit as its docid (the product id) and the matchinfo
+    // blob ProductSearch.bm25 scores. Product rows are read afterwards, for
+    // the best few only. One parameter: a ProductSearch.buildMatchQuery result.
+    public static final String SEARCH_MATCHES_SQL = "SELECT " + ProductSearch.COLUMN_DOCID
+            + ", matchinfo(" + TABLE_PRODUCTS_FTS + ", '" + ProductSearch.MATCHINFO_FORMAT + "') AS "
+            + ProductSearch.COLUMN_RANK_INFO
+            + " FROM " + TABLE_PRODUCTS_FTS
+            + " WHERE " + TABLE_PRODUCTS_FTS + " MATCH ?";
+
+    private CatalogSchema() {
+    }
+
+    // Copies, so callers cannot change the statements for everyone
+    public static String[] createProductsFtsTriggers() {
+        return CREATE_PRODUCTS_FTS_TRIGGERS.clone();
+    }
+
+    public static String[] createOrdersIndexes() {
+        return CREATE_ORDERS_INDEXES.clone();
+    }
+
+    // "id IN (?, ?, ...)" with one parameter per product id
+    public static String productIdIn(int count) {
+        StringBuilder selection = new StringBuilder(COLUMN_PRODUCT_ID).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+        }
+        return selection.append(')').toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.android.userdetails.data;
+
+/**
+ * Size and shape of a SyntheticDataset. Two specs with the same values
+ * always produce the same rows.
+ */
+public class DatasetSpec {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private final long seed;
+    private final int userCount;
+    private final int productCount;
+    private final int orderCount;
+    private final int imageStubCount;
+    private final int historyDays;
+    private final long endMillis;
+
+    public DatasetSpec(long seed, int userCount, int productCount, int orderCount,
+                       int imageStubCount, int historyDays, long endMillis) {
+        if (userCount <= 0 || productCount <= 0 || orderCount < 0 || imageStubCount < 0
+                || historyDays <= 0) {
+            throw new IllegalArgumentException("Invalid dataset size");
+        }
+        this.seed = seed;
+        this.userCount = userCount;
+        this.productCount = productCount;
+        this.orderCount = orderCount;
+        this.imageStubCount = imageStubCount;
+        this.historyDays = historyDays;
+        this.endMillis = endMillis;
+    }
+
+    // The size we plan for: 100k products and 1M orders over two years
+    public static DatasetSpec production(long seed, long endMillis) {
+        return new DatasetSpec(seed, 50_000, 100_000, 1_000_000, 64, 730, endMillis);
+    }
+
+    // Enough to page, search and chart through, quick to write on a device
+    public static DatasetSpec small(long seed, long endMillis) {
+        return new DatasetSpec(seed, 200, 1_000, 10_000, 16, 90, endMillis);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    // Distinct images shared by the products; 0 leaves every product without one
+    public int getImageStubCount() {
+        return imageStubCount;
+    }
+
+    public int getHistoryDays() {
+        return historyDays;
+    }
+
+    // Time of the newest order, epoch millis
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public long getStartMillis() {
+        return endMillis - historyDays * DAY_MS;
+    }
+}
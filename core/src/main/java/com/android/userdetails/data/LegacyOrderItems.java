@@ -0,0 +1,35 @@
+package com.android.userdetails.data;
+
+import com.android.userdetails.model.OrderItem;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the product list that orders stored as JSON before order_items
+ * existed (database version 5).
+ *
+ * org.json is part of Android, so this module only compiles against it; JVM
+ * callers such as the benchmarks bring their own copy.
+ */
+public final class LegacyOrderItems {
+
+    private LegacyOrderItems() {
+    }
+
+    // Pre-version-5 orders stored [{"id":..,"name":..,"price":..}], one entry per unit
+    public static List<OrderItem> parse(String json) throws JSONException {
+        JSONArray array = new JSONArray(json);
+        List<OrderItem> items = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.getJSONObject(i);
+            items.add(new OrderItem(obj.optInt("id"), obj.optString("name"),
+                    obj.optDouble("price", 0), 1));
+        }
+        return items;
+    }
+}
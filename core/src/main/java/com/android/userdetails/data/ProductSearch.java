@@ -0,0 +1,192 @@
+package com.android.userdetails.data;
+
+import com.android.userdetails.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Query building and ranking for the products_fts index.
+ *
+ * Android's bundled SQLite ships FTS4 but not FTS5, so there is no built-in
+ * bm25(). Instead the search query asks for matchinfo(products_fts, 'pcnalx')
+ * and the Okapi BM25 score is computed here from those counters, the same
+ * way the SQLite FTS4 documentation describes.
+ */
+public final class ProductSearch {
+
+    // matchinfo() format string used by the search query
+    public static final String MATCHINFO_FORMAT = "pcnalx";
+    // Result columns of CatalogSchema.SEARCH_MATCHES_SQL: the product id and its matchinfo blob
+    public static final String COLUMN_DOCID = "docid";
+    public static final String COLUMN_RANK_INFO = "rank_info";
+
+    // Per-column weights, in products_fts column order: name, description
+    private static final double[] COLUMN_WEIGHTS = {2.0, 1.0};
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private ProductSearch() {
+    }
+
+    /**
+     * Turns free text into an FTS MATCH expression where every word is a
+     * prefix term and all words must match, e.g. "Red shi" -> "red* shi*".
+     * Returns null when nothing searchable is left.
+     */
+    public static String buildMatchQuery(String searchText) {
+        if (searchText == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        // Lower-case so user words can never be read as AND/OR/NOT operators
+        for (String word : searchText.toLowerCase(Locale.ROOT).split("\\s+")) {
+            String term = stripSyntax(word);
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append(term).append('*');
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    // Drop characters that carry meaning in FTS query syntax
+    private static String stripSyntax(String word) {
+        StringBuilder term = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == '"' || c == '*' || c == '(' || c == ')' || c == ':' || c == '^'
+                    || c == '\'' || (c == '-' && term.length() == 0)) {
+                continue;
+            }
+            term.append(c);
+        }
+        return term.toString();
+    }
+
+    /**
+     * BM25 score of one row from its 'pcnalx' matchinfo blob. Higher is a
+     * better match.
+     */
+    public static double bm25(byte[] matchinfo) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        int rowCount = buffer.getInt(8);
+
+        int avgOffset = 3;                      // a: average tokens per column
+        int lengthOffset = avgOffset + columnCount;   // l: tokens in this row per column
+        int hitsOffset = lengthOffset + columnCount;  // x: 3 ints per phrase/column
+
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int base = hitsOffset + 3 * (column + phrase * columnCount);
+                int hitsInRow = buffer.getInt(base * 4);
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                int docsWithHits = buffer.getInt((base + 2) * 4);
+
+                double idf = Math.log((rowCount - docsWithHits + 0.5) / (docsWithHits + 0.5));
+                if (idf <= 0) {
+                    idf = 1e-6;
+                }
+
+                double rowLength = buffer.getInt((lengthOffset + column) * 4);
+                double avgLength = Math.max(1, buffer.getInt((avgOffset + column) * 4));
+                double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+
+                score += weight * idf * (hitsInRow * (K1 + 1))
+                        / (hitsInRow + K1 * (1 - B + B * rowLength / avgLength));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Keeps the best {@code limit} matches offered to it, by score, without
+     * holding on to the rest. Equal scores keep the newest product first.
+     */
+    public static final class TopMatches {
+
+        private final int limit;
+        // Worst match at the head, so it is the one pushed out
+        private final PriorityQueue<Match> best;
+
+        public TopMatches(int limit) {
+            this.limit = limit;
+            this.best = new PriorityQueue<>(Math.max(1, limit), WORST_FIRST);
+        }
+
+        public void offer(int id, double score) {
+            if (limit <= 0) {
+                return;
+            }
+            Match match = new Match(id, score);
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (WORST_FIRST.compare(match, best.peek()) > 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        // Product ids of the kept matches, best first
+        public int[] rankedIds() {
+            List<Match> ranked = new ArrayList<>(best);
+            Collections.sort(ranked, Collections.reverseOrder(WORST_FIRST));
+            int[] ids = new int[ranked.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ranked.get(i).id;
+            }
+            return ids;
+        }
+    }
+
+    private static final class Match {
+        final int id;
+        final double score;
+
+        Match(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private static final Comparator<Match> WORST_FIRST = (a, b) -> {
+        int byScore = Double.compare(a.score, b.score);
+        return byScore != 0 ? byScore : Integer.compare(a.id, b.id);
+    };
+
+    /**
+     * {@code products} in the order of {@code rankedIds}. Ids with no
+     * product, e.g. deleted between the two queries, are left out.
+     */
+    public static List<Product> inRankOrder(int[] rankedIds, List<Product> products) {
+        Map<Integer, Product> byId = new HashMap<>(products.size() * 2);
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> ranked = new ArrayList<>(rankedIds.length);
+        for (int id : rankedIds) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ranked.add(product);
+            }
+        }
+        return ranked;
+    }
+}
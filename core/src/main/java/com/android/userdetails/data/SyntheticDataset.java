@@ -0,0 +1,476 @@
+package com.android.userdetails.data;
+
+import com.android.userdetails.model.Order;
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.Product;
+import com.android.userdetails.model.User;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.TimeZone;
+
+/**
+ * Users, products and orders in production-like numbers and shapes, for
+ * load testing the catalog and order screens without real data.
+ *
+ * Everything is derived from the DatasetSpec alone, so the same spec gives
+ * the same rows on every device and JVM. Users and products are computed
+ * from their index (userAt, productAt) and can be looked up in any order;
+ * orders come out oldest first, so their ids follow time as they do in a
+ * real database.
+ *
+ * The shapes that matter for the queries:
+ * - prices are log-normal around a per-category median
+ * - product popularity is Zipf-like: the top 1% of products make over a
+ *   quarter of the sales
+ * - a minority of customers place most of the orders
+ * - orders grow over the history, recent days are the busiest
+ * - recent orders are still Pending or Confirmed, older ones Delivered,
+ *   a few percent Cancelled
+ *
+ * This class only produces rows; writing them is up to the caller (the
+ * app's SyntheticDataLoader, or the JVM benchmarks).
+ */
+public final class SyntheticDataset {
+
+    // Every generated user signs in with this password
+    public static final String USER_PASSWORD = "password123";
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    // Separate random streams, so adding a field to one kind of row does not
+    // change the others
+    private static final long STREAM_USERS = 1;
+    private static final long STREAM_PRODUCTS = 2;
+    private static final long STREAM_ORDERS = 3;
+
+    private static final double PRODUCT_POPULARITY_SKEW = 0.75;
+    private static final double CUSTOMER_ACTIVITY_SKEW = 0.9;
+    private static final int MAX_ORDER_LINES = 8;
+
+    private static final String[] MALE_NAMES = {
+            "Rahim", "Karim", "Arif", "Tanvir", "Fahim", "Sakib", "Nayeem", "Rafiq",
+            "Imran", "Hasan", "Mahmud", "Shakil", "Rakib", "Sohel", "Jamal", "Anik"
+    };
+    private static final String[] FEMALE_NAMES = {
+            "Ayesha", "Fatema", "Nusrat", "Sadia", "Tasnim", "Farhana", "Sumaiya", "Mim",
+            "Jannat", "Rumana", "Shirin", "Nabila", "Tania", "Sharmin", "Lamia", "Priya"
+    };
+    private static final String[] LAST_NAMES = {
+            "Ahmed", "Hossain", "Islam", "Rahman", "Chowdhury", "Khan", "Akter", "Begum",
+            "Sarker", "Das", "Roy", "Uddin", "Mia", "Talukder", "Saha", "Haque"
+    };
+    // Cities by share of customers; Dhaka is drawn about half the time
+    private static final String[] CITIES = {
+            "Dhaka", "Dhaka", "Dhaka", "Dhaka", "Dhaka", "Dhaka", "Dhaka", "Chattogram",
+            "Chattogram", "Narayanganj", "Gazipur", "Sylhet", "Khulna", "Rajshahi",
+            "Cumilla", "Barishal", "Rangpur", "Mymensingh"
+    };
+    private static final char[] OPERATOR_DIGITS = {'3', '4', '5', '6', '7', '7', '8', '9'};
+
+    // Category: items, their materials and the median price in taka
+    private static final Category[] CATEGORIES = {
+            new Category(new String[]{"Shirt", "T-Shirt", "Polo", "Panjabi", "Kurta"},
+                    new String[]{"Cotton", "Linen", "Silk", "Khadi", "Denim"}, 900),
+            new Category(new String[]{"Saree", "Salwar Kameez", "Scarf", "Orna", "Kameez"},
+                    new String[]{"Jamdani", "Silk", "Cotton", "Muslin", "Handloom"}, 2200),
+            new Category(new String[]{"Jeans", "Trousers", "Chinos", "Shorts", "Lungi"},
+                    new String[]{"Denim", "Cotton", "Twill", "Linen", "Check"}, 1100),
+            new Category(new String[]{"Jacket", "Sweater", "Hoodie", "Shawl", "Blazer"},
+                    new String[]{"Wool", "Fleece", "Leather", "Cashmere", "Knit"}, 2600),
+            new Category(new String[]{"Sneaker", "Sandal", "Loafer", "Boot", "Slipper"},
+                    new String[]{"Leather", "Canvas", "Suede", "Rubber", "Mesh"}, 1800),
+            new Category(new String[]{"Wallet", "Belt", "Backpack", "Handbag", "Cap"},
+                    new String[]{"Leather", "Jute", "Canvas", "Nylon", "Cotton"}, 650)
+    };
+    private static final String[] ADJECTIVES = {
+            "Classic", "Slim", "Printed", "Premium", "Casual", "Formal", "Summer", "Winter",
+            "Festive", "Everyday", "Embroidered", "Striped", "Vintage", "Modern", "Lightweight"
+    };
+    private static final String[] COLORS = {
+            "Black", "White", "Navy", "Maroon", "Olive", "Grey", "Beige", "Red", "Sky Blue",
+            "Mustard", "Green", "Brown"
+    };
+    private static final String[] FEATURES = {
+            "Breathable fabric for hot days.", "Machine washable.", "Hand finished by local artisans.",
+            "Regular fit.", "Colour stays after many washes.", "Soft on the skin.",
+            "Perfect for Eid and weddings.", "Made in Bangladesh.", "Stitched for daily wear.",
+            "Comes gift wrapped.", "Limited stock."
+    };
+    // A tenth of the catalog is named in Bangla, so search sees both scripts
+    private static final String[] BANGLA_ITEMS = {
+            "শাড়ি", "পাঞ্জাবি", "লুঙ্গি", "গামছা", "কুর্তা", "ওড়না", "চাদর", "ফতুয়া"
+    };
+    private static final String[] BANGLA_ADJECTIVES = {
+            "জামদানি", "তাঁতের", "সুতি", "রেশমি", "হাতে বোনা", "নকশি", "খাদি", "মসলিন"
+    };
+    private static final String[] BANGLA_FEATURES = {
+            "আরামদায়ক কাপড়।", "দেশি কারিগরের তৈরি।", "ঈদের জন্য উপযুক্ত।", "সহজে ধোয়া যায়।"
+    };
+
+    public static final class ProductRecord {
+        public final Product product;
+        // Index of the shared stub image, -1 for a product without an image
+        public final int imageStub;
+
+        ProductRecord(Product product, int imageStub) {
+            this.product = product;
+            this.imageStub = imageStub;
+        }
+    }
+
+    public static final class OrderRecord {
+        public final Order order;
+        public final List<OrderItem> items;
+
+        OrderRecord(Order order, List<OrderItem> items) {
+            this.order = order;
+            this.items = items;
+        }
+    }
+
+    private static final class Category {
+        final String[] items;
+        final String[] materials;
+        final double medianPrice;
+
+        Category(String[] items, String[] materials, double medianPrice) {
+            this.items = items;
+            this.materials = materials;
+            this.medianPrice = medianPrice;
+        }
+    }
+
+    private final DatasetSpec spec;
+
+    public SyntheticDataset(DatasetSpec spec) {
+        this.spec = spec;
+    }
+
+    public DatasetSpec getSpec() {
+        return spec;
+    }
+
+    // ==================== USERS ====================
+
+    // The index-th user (0-based). Emails and phone numbers are unique.
+    public User userAt(int index) {
+        SplittableRandom random = randomFor(STREAM_USERS, index);
+        String gender;
+        String first;
+        double g = random.nextDouble();
+        if (g < 0.52) {
+            gender = "Male";
+            first = pick(random, MALE_NAMES);
+        } else if (g < 0.99) {
+            gender = "Female";
+            first = pick(random, FEMALE_NAMES);
+        } else {
+            gender = "Other";
+            first = random.nextBoolean() ? pick(random, MALE_NAMES) : pick(random, FEMALE_NAMES);
+        }
+        String last = pick(random, LAST_NAMES);
+
+        User user = new User(first + " " + last,
+                (first + "." + last + "." + index + "@example.com").toLowerCase(Locale.ROOT),
+                USER_PASSWORD,
+                "01" + pick(random, OPERATOR_DIGITS) + digits(index, 8),
+                gender);
+        user.setAddress("House " + (1 + random.nextInt(120)) + ", Road " + (1 + random.nextInt(30))
+                + ", " + pick(random, CITIES));
+        user.setDateOfBirth(dateOfBirth(random));
+        return user;
+    }
+
+    public Iterator<User> users() {
+        return new IndexIterator<User>(spec.getUserCount()) {
+            @Override
+            User at(int index) {
+                return userAt(index);
+            }
+        };
+    }
+
+    // ==================== PRODUCTS ====================
+
+    // The index-th product (0-based), with no id or image paths set
+    public ProductRecord productAt(int index) {
+        SplittableRandom random = randomFor(STREAM_PRODUCTS, index);
+        Category category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        String color = pick(random, COLORS);
+
+        String name;
+        StringBuilder description = new StringBuilder();
+        if (random.nextInt(10) == 0) {
+            String item = pick(random, BANGLA_ITEMS);
+            name = pick(random, BANGLA_ADJECTIVES) + " " + item;
+            description.append(name).append("। ").append(pick(random, BANGLA_FEATURES));
+        } else {
+            String item = pick(random, category.items);
+            String material = pick(random, category.materials);
+            name = random.nextInt(3) == 0
+                    ? pick(random, ADJECTIVES) + " " + material + " " + item
+                    : material + " " + item;
+            if (random.nextBoolean()) {
+                name = name + " - " + color;
+            }
+            description.append(pick(random, ADJECTIVES))
+                    .append(' ').append(material.toLowerCase(Locale.ROOT))
+                    .append(' ').append(item.toLowerCase(Locale.ROOT))
+                    .append(" in ").append(color.toLowerCase(Locale.ROOT)).append('.');
+            int features = random.nextInt(4);
+            for (int i = 0; i < features; i++) {
+                description.append(' ').append(pick(random, FEATURES));
+            }
+        }
+
+        // Log-normal around the category median: most items near it, a long tail of expensive ones
+        double price = category.medianPrice * Math.exp(0.55 * gaussian(random));
+        price = Math.max(20, Math.round(price / 10) * 10);
+
+        Product product = new Product(name,
+                random.nextInt(20) == 0 ? null : description.toString(),
+                price, null);
+        int imageStub = spec.getImageStubCount() == 0 || random.nextInt(100) < 8
+                ? -1 : random.nextInt(spec.getImageStubCount());
+        return new ProductRecord(product, imageStub);
+    }
+
+    public Iterator<ProductRecord> products() {
+        return new IndexIterator<ProductRecord>(spec.getProductCount()) {
+            @Override
+            ProductRecord at(int index) {
+                return productAt(index);
+            }
+        };
+    }
+
+    // ==================== ORDERS ====================
+
+    // Orders oldest first. The products must have been written in order with
+    // consecutive ids starting at firstProductId; lines carry their names and
+    // prices as the order snapshot.
+    public Iterator<OrderRecord> orders(int firstProductId) {
+        return new OrderIterator(firstProductId);
+    }
+
+    private final class OrderIterator implements Iterator<OrderRecord> {
+
+        private final SplittableRandom random = randomFor(STREAM_ORDERS, 0);
+        private final ZipfPicker productPicker =
+                new ZipfPicker(spec.getProductCount(), PRODUCT_POPULARITY_SKEW);
+        private final ZipfPicker customerPicker =
+                new ZipfPicker(spec.getUserCount(), CUSTOMER_ACTIVITY_SKEW);
+        private final int firstProductId;
+        private final int[] picked = new int[MAX_ORDER_LINES];
+        private int next = 0;
+
+        OrderIterator(int firstProductId) {
+            this.firstProductId = firstProductId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < spec.getOrderCount();
+        }
+
+        @Override
+        public OrderRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index = next++;
+
+            // sqrt of a uniform position: order density rises linearly towards the end
+            double position = (index + random.nextDouble()) / spec.getOrderCount();
+            long span = spec.getEndMillis() - spec.getStartMillis();
+            long placedAt = spec.getStartMillis() + (long) (span * Math.sqrt(position));
+
+            int lines = 1;
+            while (lines < MAX_ORDER_LINES && random.nextDouble() < 0.45) {
+                lines++;
+            }
+            List<OrderItem> items = new ArrayList<>(lines);
+            double total = 0;
+            int count = 0;
+            for (int line = 0; line < lines; line++) {
+                int productIndex = productPicker.pick(random);
+                if (contains(picked, count, productIndex)) {
+                    continue; // the same product twice is one line with a larger quantity
+                }
+                picked[count++] = productIndex;
+
+                Product product = productAt(productIndex).product;
+                double unitPrice = random.nextInt(10) == 0
+                        ? Math.round(product.getPrice() * 0.9) : product.getPrice();
+                items.add(new OrderItem(firstProductId + productIndex, product.getName(),
+                        unitPrice, quantity(random)));
+                total += unitPrice * items.get(items.size() - 1).getQuantity();
+            }
+
+            User customer = userAt(customerPicker.pick(random));
+            Order order = new Order();
+            order.setPhoneNumber(customer.getPhone());
+            order.setAddress(customer.getAddress());
+            order.setTotalPrice(total);
+            order.setOrderDateMillis(placedAt);
+            order.setStatus(status(random, spec.getEndMillis() - placedAt));
+            return new OrderRecord(order, items);
+        }
+    }
+
+    private static int quantity(SplittableRandom random) {
+        double q = random.nextDouble();
+        if (q < 0.8) {
+            return 1;
+        }
+        if (q < 0.94) {
+            return 2;
+        }
+        return 3 + random.nextInt(3);
+    }
+
+    // Orders move along as they age; a few of every age are cancelled
+    private static String status(SplittableRandom random, long ageMillis) {
+        double s = random.nextDouble();
+        if (ageMillis < 2 * DAY_MS) {
+            return s < 0.6 ? "Pending" : s < 0.95 ? "Confirmed" : "Cancelled";
+        }
+        if (ageMillis < 7 * DAY_MS) {
+            return s < 0.1 ? "Pending" : s < 0.55 ? "Confirmed" : s < 0.93 ? "Delivered" : "Cancelled";
+        }
+        return s < 0.92 ? "Delivered" : "Cancelled";
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * Draws 0..n-1 with probability falling as 1/rank^skew. Ranks are spread
+     * over the indexes by a fixed stride, so the popular items are not simply
+     * the first ones written.
+     */
+    static final class ZipfPicker {
+
+        private final double[] cumulative;
+        private final long stride;
+
+        ZipfPicker(int n, double skew) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+            long s = Math.max(1, (long) (n * 0.6180339887)) | 1;
+            while (gcd(s, n) != 1) {
+                s += 2;
+            }
+            stride = s;
+        }
+
+        int pick(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return (int) (low * stride % cumulative.length);
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+
+    private abstract static class IndexIterator<T> implements Iterator<T> {
+
+        private final int count;
+        private int next = 0;
+
+        IndexIterator(int count) {
+            this.count = count;
+        }
+
+        abstract T at(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return at(next++);
+        }
+    }
+
+    // A stream of its own for each (kind, index), mixed from the spec's seed
+    private SplittableRandom randomFor(long stream, long index) {
+        return new SplittableRandom(spec.getSeed() * 0x9E3779B97F4A7C15L
+                + stream * 0xBF58476D1CE4E5B9L + index);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static char pick(SplittableRandom random, char[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Standard normal, Box-Muller
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble(); // (0, 1], keeps log finite
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Zero-padded ASCII digits; String.format would use the locale's digits
+    private static String digits(int value, int width) {
+        StringBuilder text = new StringBuilder(Integer.toString(value));
+        while (text.length() < width) {
+            text.insert(0, '0');
+        }
+        return text.toString();
+    }
+
+    // dd/MM/yyyy as the profile screen writes it, for ages 18 to 60
+    private String dateOfBirth(SplittableRandom random) {
+        Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(spec.getEndMillis());
+        int age = 18 + (random.nextInt(22) + random.nextInt(22)); // peaks around 39
+        calendar.add(Calendar.YEAR, -age);
+        calendar.add(Calendar.DAY_OF_YEAR, -random.nextInt(365));
+        return digits(calendar.get(Calendar.DAY_OF_MONTH), 2) + "/"
+                + digits(calendar.get(Calendar.MONTH) + 1, 2) + "/"
+                + calendar.get(Calendar.YEAR);
+    }
+}
@@ -0,0 +1,75 @@
+package com.android.userdetails.model;
+
+public class CartItem {
+    private int productId;
+    private String name;
+    private double unitPrice;
+    private String imagePath;
+    private int quantity;
+    private long addedAt; // When the product first went into the cart, epoch millis
+
+    public CartItem() {
+    }
+
+    public CartItem(Product product, int quantity, long addedAt) {
+        this.productId = product.getId();
+        this.name = product.getName();
+        this.unitPrice = product.getPrice();
+        this.imagePath = product.getListImage(); // shown at row size only
+        this.quantity = quantity;
+        this.addedAt = addedAt;
+    }
+
+    // Getters and Setters
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getAddedAt() {
+        return addedAt;
+    }
+
+    public void setAddedAt(long addedAt) {
+        this.addedAt = addedAt;
+    }
+
+    public double getLineTotal() {
+        return unitPrice * quantity;
+    }
+}
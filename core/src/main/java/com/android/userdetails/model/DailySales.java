@@ -0,0 +1,51 @@
+package com.android.userdetails.model;
+
+public class DailySales {
+    private long day;            // Local calendar day, counted in days since 1970-01-01
+    private long dayStartMillis; // Local midnight that starts the day
+    private int orderCount;
+    private double revenue;
+
+    public DailySales() {
+    }
+
+    public DailySales(long day, long dayStartMillis, int orderCount, double revenue) {
+        this.day = day;
+        this.dayStartMillis = dayStartMillis;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public long getDay() {
+        return day;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public long getDayStartMillis() {
+        return dayStartMillis;
+    }
+
+    public void setDayStartMillis(long dayStartMillis) {
+        this.dayStartMillis = dayStartMillis;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -4,9 +4,10 @@ public class Order {
     private int id;
     private String phoneNumber;
     private String address;
-    private String products; // JSON format এ products
+    private String products; // Legacy JSON products (before order_items), null once migrated
     private double totalPrice;
-    private String orderDate;
+    private String orderDate;       // Display text of the order time
+    private long orderDateMillis;   // Epoch millis, 0 if unknown
     private String status; // "Pending", "Confirmed", "Delivered"
 
     // Constructor
@@ -73,6 +74,14 @@ public class Order {
         this.orderDate = orderDate;
     }
 
+    public long getOrderDateMillis() {
+        return orderDateMillis;
+    }
+
+    public void setOrderDateMillis(long orderDateMillis) {
+        this.orderDateMillis = orderDateMillis;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -0,0 +1,73 @@
+package com.android.userdetails.model;
+
+public class OrderItem {
+    private int id;
+    private int orderId;
+    private int productId;
+    private String name;      // Product name at the time of the order
+    private double unitPrice; // Product price at the time of the order
+    private int quantity;
+
+    public OrderItem() {
+    }
+
+    public OrderItem(int productId, String name, double unitPrice, int quantity) {
+        this.productId = productId;
+        this.name = name;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getLineTotal() {
+        return unitPrice * quantity;
+    }
+}
@@ -0,0 +1,84 @@
+package com.android.userdetails.model;
+
+public class Product {
+    private int id;                 // ✅ Added for database ID
+    private String name;
+    private String description;
+    private double price;
+    private String imagePath;
+    private String listImagePath;   // Small thumbnail for list rows, null if none
+    private String detailImagePath; // Screen-size copy for detail views, null if none
+    // What the database knows about the image files, so list rows never
+    // touch the disk. Availability is null until ingested or verified.
+    private Boolean imageAvailable;
+    private int imageWidth;
+    private int imageHeight;
+    private long imageBytes;
+
+    public Product() {}
+
+    public Product(String name, String description, double price, String imagePath) {
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.imagePath = imagePath;
+    }
+
+    // ✅ Getters
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public double getPrice() { return price; }
+    public String getImagePath() { return imagePath; }
+    public String getListImagePath() { return listImagePath; }
+    public String getDetailImagePath() { return detailImagePath; }
+    public Boolean getImageAvailable() { return imageAvailable; }
+    public int getImageWidth() { return imageWidth; }
+    public int getImageHeight() { return imageHeight; }
+    public long getImageBytes() { return imageBytes; }
+
+    // ✅ Setters
+    public void setId(int id) { this.id = id; }
+    public void setName(String name) { this.name = name; }
+    public void setDescription(String description) { this.description = description; }
+    public void setPrice(double price) { this.price = price; }
+    public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+    public void setListImagePath(String listImagePath) { this.listImagePath = listImagePath; }
+    public void setDetailImagePath(String detailImagePath) { this.detailImagePath = detailImagePath; }
+    public void setImageAvailable(Boolean imageAvailable) { this.imageAvailable = imageAvailable; }
+    public void setImageWidth(int imageWidth) { this.imageWidth = imageWidth; }
+    public void setImageHeight(int imageHeight) { this.imageHeight = imageHeight; }
+    public void setImageBytes(long imageBytes) { this.imageBytes = imageBytes; }
+
+    // ✅ Optional alias (for backward compatibility with DatabaseHelper)
+    public String getImage() { return imagePath; }
+    public void setImage(String imagePath) { this.imagePath = imagePath; }
+
+    // Best file for a list row / detail view: the thumbnail if there is one,
+    // else the full image (products added before thumbnails existed)
+    public String getListImage() {
+        return listImagePath != null && !listImagePath.isEmpty() ? listImagePath : imagePath;
+    }
+
+    public String getDetailImage() {
+        return detailImagePath != null && !detailImagePath.isEmpty() ? detailImagePath : imagePath;
+    }
+
+    // Whether a row should try to load the image. Not yet verified counts
+    // as yes; Glide falls back to its error drawable if the file is gone.
+    public boolean hasLoadableImage() {
+        String image = getListImage();
+        return image != null && !image.isEmpty() && !Boolean.FALSE.equals(imageAvailable);
+    }
+
+    // Copies the image paths and what is known about them
+    public void copyImageFrom(Product other) {
+        imagePath = other.imagePath;
+        listImagePath = other.listImagePath;
+        detailImagePath = other.detailImagePath;
+        imageAvailable = other.imageAvailable;
+        imageWidth = other.imageWidth;
+        imageHeight = other.imageHeight;
+        imageBytes = other.imageBytes;
+    }
+}
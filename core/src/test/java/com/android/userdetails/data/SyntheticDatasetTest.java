@@ -0,0 +1,100 @@
+package com.android.userdetails.data;
+
+import com.android.userdetails.model.OrderItem;
+import com.android.userdetails.model.Product;
+import com.android.userdetails.model.User;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SyntheticDatasetTest {
+
+    private static final long END = 1_760_000_000_000L;
+
+    @Test
+    public void sameSpecGivesSameRows() {
+        SyntheticDataset first = new SyntheticDataset(DatasetSpec.small(7, END));
+        SyntheticDataset second = new SyntheticDataset(DatasetSpec.small(7, END));
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(first.userAt(i).toString(), second.userAt(i).toString());
+            Product a = first.productAt(i).product;
+            Product b = second.productAt(i).product;
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getDescription(), b.getDescription());
+            assertEquals(a.getPrice(), b.getPrice(), 0);
+        }
+
+        Iterator<SyntheticDataset.OrderRecord> left = first.orders(1);
+        Iterator<SyntheticDataset.OrderRecord> right = second.orders(1);
+        while (left.hasNext()) {
+            SyntheticDataset.OrderRecord a = left.next();
+            SyntheticDataset.OrderRecord b = right.next();
+            assertEquals(a.order.getOrderDateMillis(), b.order.getOrderDateMillis());
+            assertEquals(a.order.getPhoneNumber(), b.order.getPhoneNumber());
+            assertEquals(a.order.getTotalPrice(), b.order.getTotalPrice(), 0);
+            assertEquals(a.items.size(), b.items.size());
+        }
+        assertFalse(right.hasNext());
+    }
+
+    @Test
+    public void seedChangesRows() {
+        SyntheticDataset first = new SyntheticDataset(DatasetSpec.small(7, END));
+        SyntheticDataset second = new SyntheticDataset(DatasetSpec.small(8, END));
+
+        assertNotEquals(first.productAt(0).product.getName() + first.userAt(0).getName(),
+                second.productAt(0).product.getName() + second.userAt(0).getName());
+    }
+
+    @Test
+    public void usersAreUnique() {
+        DatasetSpec spec = DatasetSpec.small(7, END);
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        Iterator<User> users = new SyntheticDataset(spec).users();
+        while (users.hasNext()) {
+            User user = users.next();
+            assertTrue(emails.add(user.getEmail()));
+            assertTrue(phones.add(user.getPhone()));
+        }
+        assertEquals(spec.getUserCount(), emails.size());
+    }
+
+    @Test
+    public void ordersReferenceTheirProductsInTimeOrder() {
+        DatasetSpec spec = DatasetSpec.small(7, END);
+        SyntheticDataset dataset = new SyntheticDataset(spec);
+        int firstProductId = 101;
+
+        long previous = spec.getStartMillis();
+        int orders = 0;
+        Iterator<SyntheticDataset.OrderRecord> iterator = dataset.orders(firstProductId);
+        while (iterator.hasNext()) {
+            SyntheticDataset.OrderRecord record = iterator.next();
+            long placedAt = record.order.getOrderDateMillis();
+            assertTrue(placedAt >= previous && placedAt <= spec.getEndMillis());
+            previous = placedAt;
+
+            assertFalse(record.items.isEmpty());
+            double total = 0;
+            for (OrderItem item : record.items) {
+                int index = item.getProductId() - firstProductId;
+                assertTrue(index >= 0 && index < spec.getProductCount());
+                assertEquals(dataset.productAt(index).product.getName(), item.getName());
+                total += item.getLineTotal();
+            }
+            assertEquals(total, record.order.getTotalPrice(), 0.001);
+            orders++;
+        }
+        assertEquals(spec.getOrderCount(), orders);
+    }
+}
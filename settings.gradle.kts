@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Userdetails"
 include(":app")
+include(":core")
  
\ No newline at end of file